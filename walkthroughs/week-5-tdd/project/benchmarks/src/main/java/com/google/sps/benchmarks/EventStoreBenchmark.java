@@ -0,0 +1,124 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.Event;
+import com.google.sps.EventStore;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.InMemoryEventStore;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures queries against the current snapshot of an {@code InMemoryEventStore} while a writer
+ * keeps adding events, so that every new snapshot has to build its own index. The thread counts
+ * of {@code -tg} are given in the order of the method names, writer first, so run it with
+ * {@code -tg 1,1} and then with more readers, such as {@code -tg 1,8}, to see how the queries
+ * scale with the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class EventStoreBenchmark {
+  private static final long SEED = 20200601L;
+  private static final int REQUEST_COUNT = 1024;
+
+  @Param({"100", "1000"})
+  public int attendees;
+
+  // How long the writer waits after adding each event.
+  @Param({"1", "10"})
+  public int writePauseMillis;
+
+  private EventStore store;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    // Start every iteration from the same calendar, so the store does not grow from one to the
+    // next.
+    store = new InMemoryEventStore(
+        SyntheticCalendar.events(SEED, attendees, 16, 0.5).toArray(new Event[0]));
+  }
+
+  /** The requests of one reader thread. */
+  @State(Scope.Thread)
+  public static class Reader {
+    private MeetingRequest[] requests;
+    private FindMeetingQuery query;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(EventStoreBenchmark benchmark) {
+      requests = SyntheticCalendar.requests(SEED, REQUEST_COUNT, benchmark.attendees, 2, 0, 30)
+          .toArray(new MeetingRequest[0]);
+      query = new FindMeetingQuery();
+    }
+
+    private MeetingRequest nextRequest() {
+      next = (next + 1) & (REQUEST_COUNT - 1);
+      return requests[next];
+    }
+  }
+
+  /** The events that the writer thread adds, one at a time. */
+  @State(Scope.Thread)
+  public static class Writer {
+    private int next;
+
+    private Event nextEvent(int attendees) {
+      next++;
+      int minute = (next * 7) % (TimeRange.WHOLE_DAY.duration() - 30);
+      return new Event("Added " + next, TimeRange.fromStartDuration(minute, 30),
+          Collections.singletonList(SyntheticCalendar.attendee(next % attendees)));
+    }
+  }
+
+  @Benchmark
+  @Group("readWhileWriting")
+  @GroupThreads(4)
+  public Collection<TimeRange> query(Reader reader) {
+    CalendarSnapshot snapshot = store.getSnapshot();
+    return reader.query.query(snapshot.getIndex(), reader.nextRequest());
+  }
+
+  @Benchmark
+  @Group("readWhileWriting")
+  @GroupThreads(1)
+  public void add(Writer writer) throws InterruptedException {
+    store.add(writer.nextEvent(attendees));
+    Thread.sleep(writePauseMillis);
+  }
+}
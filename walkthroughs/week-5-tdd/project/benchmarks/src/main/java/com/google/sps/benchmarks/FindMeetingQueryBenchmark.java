@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AvailabilityService;
+import com.google.sps.Event;
+import com.google.sps.EventIndex;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures every {@code FindMeetingQuery} engine on the same synthetic calendars. Each invocation
+ * answers the next request from a fixed list, so no single request dominates the numbers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FindMeetingQueryBenchmark {
+  private static final long SEED = 20200601L;
+  private static final int REQUEST_COUNT = 1024;
+
+  // The defaults are a handful of representative calendars that run in minutes. The README shows
+  // how to sweep more values with -p.
+  @Param({"100", "1000"})
+  public int attendees;
+
+  @Param({"16"})
+  public int eventsPerAttendee;
+
+  @Param({"0.5"})
+  public double density;
+
+  @Param({"2", "10"})
+  public int requestSize;
+
+  @Param({"0", "5"})
+  public int optionalSize;
+
+  @Param({"30"})
+  public int duration;
+
+  private List<Event> events;
+  private EventIndex index;
+  private AvailabilityService availability;
+  private MeetingRequest[] requests;
+  private FindMeetingQuery query;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    events = SyntheticCalendar.events(SEED, attendees, eventsPerAttendee, density);
+    index = new EventIndex(events);
+    availability = new AvailabilityService(events);
+    requests = SyntheticCalendar.requests(
+        SEED, REQUEST_COUNT, attendees, requestSize, optionalSize, duration)
+        .toArray(new MeetingRequest[0]);
+    query = new FindMeetingQuery();
+  }
+
+  private MeetingRequest nextRequest() {
+    next = (next + 1) & (REQUEST_COUNT - 1);
+    return requests[next];
+  }
+
+  @Benchmark
+  public Collection<TimeRange> scanEvents() {
+    return query.query(events, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> eventIndex() {
+    return query.query(index, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> minuteBitmap() {
+    return query.queryByMinute(index, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> availabilityService() {
+    return query.query(availability, nextRequest());
+  }
+
+  @Benchmark
+  public EventIndex buildEventIndex() {
+    return new EventIndex(events);
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates random but repeatable calendars and meeting requests for the benchmarks. The same seed
+ * always gives the same calendar, so runs of different versions of the code can be compared.
+ */
+public final class SyntheticCalendar {
+  // Events are shared by one to this many people.
+  private static final int MAX_ATTENDEES_PER_EVENT = 3;
+
+  private SyntheticCalendar() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the name of the attendee with the given number.
+   */
+  public static String attendee(int number) {
+    return "Person " + number;
+  }
+
+  /**
+   * Generates the events of a single day.
+   *
+   * @param attendees The number of people on the calendar.
+   * @param eventsPerAttendee The average number of events each person attends.
+   * @param density The average fraction of each person's day that is covered by events, between 0
+   *     and 1. Events are placed at random, so some of them will overlap.
+   */
+  public static List<Event> events(long seed, int attendees, int eventsPerAttendee, double density) {
+    Random random = new Random(seed);
+    int day = TimeRange.WHOLE_DAY.duration();
+    int averageDuration = Math.max(1, (int) (density * day / eventsPerAttendee));
+    int averageGroup = (MAX_ATTENDEES_PER_EVENT + 1) / 2;
+    int eventCount = Math.max(1, attendees * eventsPerAttendee / averageGroup);
+
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      int duration = 1 + random.nextInt(2 * averageDuration);
+      int start = random.nextInt(Math.max(1, day - duration));
+
+      Set<String> people = new HashSet<>();
+      int group = 1 + random.nextInt(MAX_ATTENDEES_PER_EVENT);
+      while (people.size() < Math.min(group, attendees)) {
+        people.add(attendee(random.nextInt(attendees)));
+      }
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration), people));
+    }
+    return events;
+  }
+
+  /**
+   * Generates meeting requests for people on a calendar made by {@link #events}.
+   *
+   * @param attendees The number of people on the calendar.
+   * @param requestSize The number of required attendees of each request.
+   * @param optionalSize The number of optional attendees of each request.
+   * @param duration The length of each meeting in minutes.
+   */
+  public static List<MeetingRequest> requests(long seed, int count, int attendees, int requestSize,
+      int optionalSize, int duration) {
+    Random random = new Random(seed);
+    List<MeetingRequest> requests = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Set<String> people = new HashSet<>();
+      while (people.size() < Math.min(requestSize, attendees)) {
+        people.add(attendee(random.nextInt(attendees)));
+      }
+
+      MeetingRequest request = new MeetingRequest(people, duration);
+      for (int j = 0; j < optionalSize; j++) {
+        request.addOptionalAttendee(attendee(random.nextInt(attendees)));
+      }
+      requests.add(request);
+    }
+    return requests;
+  }
+}
@@ -0,0 +1,92 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the basic {@code TimeRange} operations that every query engine is built on.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeRangeBenchmark {
+  @Param({"16", "1024"})
+  public int ranges;
+
+  private TimeRange[] times;
+  private TimeRange probe;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(ranges);
+    times = new TimeRange[ranges];
+    for (int i = 0; i < ranges; i++) {
+      times[i] = TimeRange.fromStartDuration(
+          random.nextInt(TimeRange.WHOLE_DAY.duration()), 1 + random.nextInt(120));
+    }
+    probe = TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(12, 0), 60);
+  }
+
+  @Benchmark
+  public void overlaps(Blackhole blackhole) {
+    for (TimeRange time : times) {
+      blackhole.consume(probe.overlaps(time));
+    }
+  }
+
+  @Benchmark
+  public void contains(Blackhole blackhole) {
+    for (TimeRange time : times) {
+      blackhole.consume(probe.contains(time));
+    }
+  }
+
+  @Benchmark
+  public void fromStartEnd(Blackhole blackhole) {
+    for (TimeRange time : times) {
+      blackhole.consume(TimeRange.fromStartEnd(time.start(), time.end(), false));
+    }
+  }
+
+  @Benchmark
+  public List<TimeRange> sortByStart() {
+    List<TimeRange> sorted = new ArrayList<>(times.length);
+    Collections.addAll(sorted, times);
+    Collections.sort(sorted, TimeRange.ORDER_BY_START);
+    return sorted;
+  }
+}
@@ -0,0 +1,74 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AttendeeDictionary gives every attendee name a dense int id, starting at zero, so that the
+ * attendees of a query can be kept in arrays indexed by id instead of in maps keyed by name. A
+ * dictionary belongs to whatever encodes names with it, such as a single query, and goes away with
+ * it, so ids never pile up for people who are no longer on the calendar. Dictionaries are not
+ * thread-safe.
+ */
+public final class AttendeeDictionary {
+  private final Map<String, Integer> ids = new HashMap<>();
+
+  // The name of every id.
+  private final List<String> names = new ArrayList<>();
+
+  /**
+   * Returns the id of {@code name}, giving it the next unused id if it does not have one yet.
+   */
+  public int getId(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+
+    ids.put(name, names.size());
+    names.add(name);
+    return names.size() - 1;
+  }
+
+  /**
+   * Returns the id of {@code name}, or -1 if it has never been given one. Unlike
+   * {@link #getId}, this never adds the name to the dictionary.
+   */
+  public int lookup(String name) {
+    Integer id = ids.get(name);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Returns the name that was given {@code id}.
+   */
+  public String getName(int id) {
+    if (id < 0 || id >= names.size()) {
+      throw new IllegalArgumentException("unknown attendee id: " + id);
+    }
+    return names.get(id);
+  }
+
+  /**
+   * Returns the number of names that have been given an id.
+   */
+  public int size() {
+    return names.size();
+  }
+}
@@ -0,0 +1,265 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AvailabilityService keeps the free times of every attendee ready for meeting queries. Calendars
+ * change much less often than they are queried, so instead of working out availability from the
+ * events on every query, each attendee's free intervals are stored and only the attendees of an
+ * event that is added or removed are updated. For each of them, only the free intervals that reach
+ * the time of the event are worked out again.
+ *
+ * Updates are serialized, while queries never block: every attendee's free intervals are replaced
+ * as a whole, so a query sees either the old or the new intervals of each attendee.
+ */
+public final class AvailabilityService {
+  // The span of time that availability is kept for, such as one day or a few weeks.
+  private final TimeRange window;
+
+  // The free intervals of an attendee without any events, which is the whole window.
+  private final IntervalList wholeWindow;
+
+  // How many times each event has been added and not removed yet. Only used by updates, which hold
+  // the lock on this service.
+  private final Map<Event, Integer> events = new HashMap<>();
+
+  // For every attendee with events in the window, how many of them cover each part of it. Each key
+  // is a minute where the count changes and its value is the count from that minute on, so the last
+  // entry always has a count of zero. Only used by updates.
+  private final Map<String, NavigableMap<Integer, Integer>> coverage = new HashMap<>();
+
+  // For every attendee with events, their free intervals in the window. The lists are never changed
+  // after they are published here.
+  private final Map<String, IntervalList> freeIntervals = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new service that tracks the availability of attendees during {@code window}.
+   *
+   * @param window The span of time to keep availability for. Must be non-null.
+   */
+  public AvailabilityService(TimeRange window) {
+    if (window == null) {
+      throw new IllegalArgumentException("window cannot be null");
+    }
+
+    this.window = window;
+    this.wholeWindow = new IntervalList(1).add(window.start(), window.end());
+  }
+
+  /**
+   * Creates a new service for a single day that starts out with the given events. The times of each
+   * attendee are sorted once, instead of being added one event at a time.
+   */
+  public AvailabilityService(Collection<Event> events) {
+    this(TimeRange.WHOLE_DAY);
+
+    Map<String, List<TimeRange>> times = new HashMap<>();
+    for (Event event : events) {
+      this.events.merge(event, 1, Integer::sum);
+      for (String attendee : event.getAttendees()) {
+        times.computeIfAbsent(attendee, key -> new ArrayList<>()).add(event.getWhen());
+      }
+    }
+    for (Map.Entry<String, List<TimeRange>> entry : times.entrySet()) {
+      load(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Returns the span of time that availability is kept for.
+   */
+  public TimeRange getWindow() {
+    return window;
+  }
+
+  /**
+   * Adds an event, updating the free times of its attendees.
+   */
+  public synchronized void addEvent(Event event) {
+    events.merge(event, 1, Integer::sum);
+    for (String attendee : event.getAttendees()) {
+      update(attendee, event.getWhen(), 1);
+    }
+  }
+
+  /**
+   * Removes an event that was added before, updating the free times of its attendees. An event
+   * that was added more than once has to be removed as many times. Returns {@code false} if the
+   * event was never added, even if another event has the same time and attendees.
+   */
+  public synchronized boolean removeEvent(Event event) {
+    Integer count = events.get(event);
+    if (count == null) {
+      return false;
+    }
+
+    if (count > 1) {
+      events.put(event, count - 1);
+    } else {
+      events.remove(event);
+    }
+    for (String attendee : event.getAttendees()) {
+      update(attendee, event.getWhen(), -1);
+    }
+    return true;
+  }
+
+  /**
+   * Returns a read-only list of the free times of {@code attendee} in the window, in ascending
+   * order.
+   */
+  public List<TimeRange> getFreeTimes(String attendee) {
+    return getFreeIntervals(attendee).asTimeRanges();
+  }
+
+  /**
+   * Returns the free intervals of {@code attendee}. Attendees without events are free for the whole
+   * window. The list is shared with the service and must not be modified.
+   */
+  IntervalList getFreeIntervals(String attendee) {
+    IntervalList intervals = freeIntervals.get(attendee);
+    return intervals == null ? wholeWindow : intervals;
+  }
+
+  /**
+   * Sets up the counts and free intervals of {@code attendee} from all of their busy times at once.
+   * The starts and ends are sorted separately and swept together, so the counts are built in order.
+   */
+  private void load(String attendee, List<TimeRange> times) {
+    int[] starts = new int[times.size()];
+    int[] ends = new int[times.size()];
+    int length = 0;
+    for (TimeRange time : times) {
+      int start = Math.max(time.start(), window.start());
+      int end = Math.min(time.end(), window.end());
+      if (start < end) {
+        starts[length] = start;
+        ends[length] = end;
+        length++;
+      }
+    }
+    if (length == 0) {
+      return;
+    }
+    Arrays.sort(starts, 0, length);
+    Arrays.sort(ends, 0, length);
+
+    // Every event ends after it starts, so the last change is an end and the count never drops
+    // below zero.
+    NavigableMap<Integer, Integer> covered = new TreeMap<>();
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (j < length) {
+      int time = i < length ? Math.min(starts[i], ends[j]) : ends[j];
+      int before = count;
+      while (i < length && starts[i] == time) {
+        count++;
+        i++;
+      }
+      while (j < length && ends[j] == time) {
+        count--;
+        j++;
+      }
+      if (count != before) {
+        covered.put(time, count);
+      }
+    }
+
+    coverage.put(attendee, covered);
+    freeIntervals.put(attendee, freeBetween(covered, window.start(), window.end()));
+  }
+
+  /**
+   * Adds {@code delta} to the number of events of {@code attendee} that cover {@code time}, then
+   * splices the free intervals inside that time into the attendee's free intervals. Attendees are
+   * forgotten once none of their events cover any of the window.
+   */
+  private void update(String attendee, TimeRange time, int delta) {
+    int start = Math.max(time.start(), window.start());
+    int end = Math.min(time.end(), window.end());
+    if (start >= end) {
+      return;
+    }
+
+    NavigableMap<Integer, Integer> counts =
+        coverage.computeIfAbsent(attendee, key -> new TreeMap<>());
+    split(counts, start);
+    split(counts, end);
+    for (Map.Entry<Integer, Integer> entry : counts.subMap(start, end).entrySet()) {
+      entry.setValue(entry.getValue() + delta);
+    }
+    join(counts, start);
+    join(counts, end);
+
+    if (counts.isEmpty()) {
+      coverage.remove(attendee);
+      freeIntervals.remove(attendee);
+      return;
+    }
+    IntervalList free = getFreeIntervals(attendee);
+    freeIntervals.put(attendee, free.splice(start, end, freeBetween(counts, start, end)));
+  }
+
+  /** Adds a key at {@code time} to {@code counts}, with the count that already applies there. */
+  private static void split(NavigableMap<Integer, Integer> counts, int time) {
+    if (!counts.containsKey(time)) {
+      counts.put(time, countBefore(counts, time));
+    }
+  }
+
+  /** Removes the key at {@code time} from {@code counts} if the count does not change there. */
+  private static void join(NavigableMap<Integer, Integer> counts, int time) {
+    Integer count = counts.get(time);
+    if (count != null && count == countBefore(counts, time)) {
+      counts.remove(time);
+    }
+  }
+
+  /** Returns the count that applies just before {@code time}. */
+  private static int countBefore(NavigableMap<Integer, Integer> counts, int time) {
+    Map.Entry<Integer, Integer> before = counts.lowerEntry(time);
+    return before == null ? 0 : before.getValue();
+  }
+
+  /** Returns the parts of [from, to) that {@code counts} has no events covering. */
+  private static IntervalList freeBetween(NavigableMap<Integer, Integer> counts, int from, int to) {
+    IntervalList free = new IntervalList();
+    Map.Entry<Integer, Integer> first = counts.floorEntry(from);
+    int count = first == null ? 0 : first.getValue();
+    int start = from;
+    for (Map.Entry<Integer, Integer> entry : counts.subMap(from, false, to, false).entrySet()) {
+      if (count == 0) {
+        free.add(start, entry.getKey());
+      }
+      count = entry.getValue();
+      start = entry.getKey();
+    }
+    if (count == 0) {
+      free.add(start, to);
+    }
+    return free;
+  }
+}
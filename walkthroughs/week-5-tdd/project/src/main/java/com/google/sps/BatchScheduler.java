@@ -0,0 +1,262 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BatchScheduler places a whole list of meetings at once, so that none of them clash with each
+ * other or with the events already on the calendar. Meetings are placed most constrained first,
+ * meaning the ones with the fewest possible starts, and each placement is added to the busy
+ * intervals of its attendees straight away, so later meetings see it without the calendar being
+ * indexed again.
+ *
+ * The search is a depth-first branch and bound over the possible starts of each meeting, earliest
+ * first, where leaving a meeting out is the last option. The first descent is a greedy schedule,
+ * and backtracking then looks for schedules that place more meetings until all are placed or the
+ * budget of placement attempts runs out. Only required attendees are considered.
+ */
+public final class BatchScheduler {
+  public static final int DEFAULT_BUDGET = 10_000;
+
+  private static final int NOT_PLACED = Integer.MIN_VALUE;
+
+  // Unless a request sets an alignment or step, its possible starts are this many minutes apart.
+  private static final int DEFAULT_STEP = 15;
+
+  private final int budget;
+
+  /** The outcome of scheduling a list of meetings. */
+  public static final class Result {
+    private final List<TimeRange> placements;
+    private final List<Integer> unplaced;
+
+    private Result(List<TimeRange> placements, List<Integer> unplaced) {
+      this.placements = Collections.unmodifiableList(placements);
+      this.unplaced = Collections.unmodifiableList(unplaced);
+    }
+
+    /**
+     * Returns a read-only list with the time of each meeting, in the same order as the requests,
+     * or {@code null} for the meetings that could not be placed.
+     */
+    public List<TimeRange> getPlacements() {
+      return placements;
+    }
+
+    /**
+     * Returns a read-only list of the positions of the requests that could not be placed, in
+     * ascending order.
+     */
+    public List<Integer> getUnplaced() {
+      return unplaced;
+    }
+  }
+
+  /**
+   * Creates a new scheduler with the default budget.
+   */
+  public BatchScheduler() {
+    this(DEFAULT_BUDGET);
+  }
+
+  /**
+   * Creates a new scheduler.
+   *
+   * @param budget The most placement attempts to make while backtracking. Must be positive. The
+   *     first greedy schedule is always finished, even if it takes more.
+   */
+  public BatchScheduler(int budget) {
+    if (budget <= 0) {
+      throw new IllegalArgumentException("budget must be positive");
+    }
+
+    this.budget = budget;
+  }
+
+  /**
+   * Places the requested meetings in {@code window}, around the events in {@code index} and each
+   * other, placing as many of them as the search finds room for.
+   */
+  public Result schedule(EventIndex index, List<MeetingRequest> requests, TimeRange window) {
+    Search search = new Search(index, requests, window);
+    search.run(0, 0);
+
+    List<TimeRange> placements = new ArrayList<>(Collections.nCopies(requests.size(), null));
+    List<Integer> unplaced = new ArrayList<>();
+    for (int depth = 0; depth < requests.size(); depth++) {
+      int position = search.order[depth];
+      int start = search.best[depth];
+      if (start == NOT_PLACED) {
+        unplaced.add(position);
+      } else {
+        MeetingRequest request = requests.get(position);
+        placements.set(position,
+            TimeRange.fromStartDuration(start, (int) request.getDuration()));
+      }
+    }
+    Collections.sort(unplaced);
+    return new Result(placements, unplaced);
+  }
+
+  /** The state of one run of the search. */
+  private final class Search {
+    private final EventIndex index;
+    private final List<MeetingRequest> requests;
+    private final TimeRange window;
+
+    // The positions of the requests in the order they are placed.
+    final int[] order;
+
+    // The start of each meeting in the current and in the best schedule, by depth.
+    private final int[] current;
+    int[] best;
+    private int bestCount = -1;
+    private int attempts;
+
+    // The number of meetings that have any possible start before anything is placed. Placing
+    // meetings only takes starts away, so the others can never be placed.
+    private int placeable;
+
+    // The busy intervals of every attendee seen so far, including the meetings placed on the
+    // current path. Copied from the index the first time an attendee is needed.
+    private final Map<String, IntervalList> busy = new HashMap<>();
+    private final IntervalList slot = new IntervalList(1);
+
+    Search(EventIndex index, List<MeetingRequest> requests, TimeRange window) {
+      this.index = index;
+      this.requests = requests;
+      this.window = window;
+      this.current = new int[requests.size()];
+      this.best = new int[requests.size()];
+      Arrays.fill(best, NOT_PLACED);
+
+      // Sort by the number of possible starts, then by the number of attendees, largest first,
+      // packing both into one long with the position in the low bits.
+      long[] keys = new long[requests.size()];
+      for (int i = 0; i < keys.length; i++) {
+        MeetingRequest request = requests.get(i);
+        long starts = Math.min(getStarts(request).length, 0x7FFF);
+        if (starts > 0) {
+          placeable++;
+        }
+        long attendees = 0xFFFF - Math.min(request.getAttendees().size(), 0xFFFF);
+        keys[i] = (starts << 48) | (attendees << 32) | i;
+      }
+      Arrays.sort(keys);
+      order = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        order[i] = (int) keys[i];
+      }
+    }
+
+    void run(int depth, int placed) {
+      if (depth == order.length) {
+        if (placed > bestCount) {
+          bestCount = placed;
+          best = current.clone();
+        }
+        return;
+      }
+      // Even placing every meeting that is left would not beat the best schedule. The meetings
+      // that cannot be placed at all come first in the order, so they are never counted as left.
+      if (placed + Math.min(order.length - depth, placeable) <= bestCount) {
+        return;
+      }
+
+      MeetingRequest request = requests.get(order[depth]);
+      for (int start : getStarts(request)) {
+        attempts++;
+        current[depth] = start;
+        place(request, start);
+        run(depth + 1, placed + 1);
+        unplace(request, start);
+        if (isDone()) {
+          return;
+        }
+      }
+
+      attempts++;
+      current[depth] = NOT_PLACED;
+      run(depth + 1, placed);
+    }
+
+    /** Returns whether every meeting is placed, or a schedule exists and the budget is spent. */
+    private boolean isDone() {
+      return bestCount == placeable || (bestCount >= 0 && attempts >= budget);
+    }
+
+    /** Returns the possible starts of the meeting given the meetings placed so far, in order. */
+    private int[] getStarts(MeetingRequest request) {
+      IntervalList free = new IntervalList(1).add(window.start(), window.end());
+      for (String attendee : request.getAttendees()) {
+        free.subtract(getBusy(attendee)).removeShorterThan(request.getDuration());
+        if (free.isEmpty()) {
+          return new int[0];
+        }
+      }
+
+      boolean granularitySet = request.getAlignment() > 0 || request.getStep() > 0;
+      int alignment = granularitySet ? request.getStartAlignment() : DEFAULT_STEP;
+      int step = request.getStep() > 0 ? request.getStep() : alignment;
+      int duration = (int) request.getDuration();
+      int[] starts = new int[8];
+      int count = 0;
+      for (int i = 0; i < free.size(); i++) {
+        for (int start = alignUp(free.start(i), alignment); start + duration <= free.end(i);
+            start = alignUp(start + step, alignment)) {
+          if (count == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * count);
+          }
+          starts[count++] = start;
+        }
+      }
+      return Arrays.copyOf(starts, count);
+    }
+
+    private void place(MeetingRequest request, int start) {
+      slot.clear().add(start, start + (int) request.getDuration());
+      for (String attendee : request.getAttendees()) {
+        getBusy(attendee).merge(slot);
+      }
+    }
+
+    /** Takes a placed meeting back out. It was placed in free time, so nothing else is lost. */
+    private void unplace(MeetingRequest request, int start) {
+      slot.clear().add(start, start + (int) request.getDuration());
+      for (String attendee : request.getAttendees()) {
+        getBusy(attendee).subtract(slot);
+      }
+    }
+
+    private IntervalList getBusy(String attendee) {
+      IntervalList intervals = busy.get(attendee);
+      if (intervals == null) {
+        intervals = index.getBusyIntervals(attendee).copy();
+        busy.put(attendee, intervals);
+      }
+      return intervals;
+    }
+  }
+
+  /** Returns the first multiple of {@code alignment} at or after {@code time}. */
+  private static int alignUp(int time, int alignment) {
+    return Math.floorDiv(time + alignment - 1, alignment) * alignment;
+  }
+}
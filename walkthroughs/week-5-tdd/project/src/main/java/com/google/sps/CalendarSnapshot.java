@@ -0,0 +1,190 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * CalendarSnapshot is an immutable view of every event on the calendar at one moment. A store
+ * changes by publishing a new snapshot rather than by changing the current one, so a query that
+ * holds on to a snapshot sees a consistent calendar for as long as it runs, without any locks.
+ */
+public final class CalendarSnapshot {
+  public static final CalendarSnapshot EMPTY =
+      new CalendarSnapshot(Collections.<Event>emptyList(), 0);
+
+  private final List<Event> events;
+  private final long version;
+
+  // Built the first time a query or a page of events needs them. Threads that ask while one is
+  // being built wait for it instead of building their own.
+  private final Lazy<EventIndex> index;
+  private final Lazy<EventCatalog> catalog;
+
+  private CalendarSnapshot(List<Event> events, long version) {
+    this.events = events;
+    this.version = version;
+    this.index = new Lazy<>(() -> new EventIndex(events));
+    this.catalog = new Lazy<>(() -> new EventCatalog(events));
+  }
+
+  /**
+   * Returns a read-only list of the events in this snapshot.
+   */
+  public List<Event> getEvents() {
+    return events;
+  }
+
+  /**
+   * Returns the number of events in this snapshot.
+   */
+  public int size() {
+    return events.size();
+  }
+
+  /**
+   * Returns the version of this snapshot. Every snapshot made from this one has a higher version.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns an {@code EventIndex} over the events in this snapshot, building it on first use.
+   */
+  public EventIndex getIndex() {
+    return index.get();
+  }
+
+  /**
+   * Returns an {@code EventCatalog} over the events in this snapshot, building it on first use.
+   */
+  public EventCatalog getCatalog() {
+    return catalog.get();
+  }
+
+  /**
+   * Returns a new snapshot with the events of this one followed by {@code added}. This snapshot is
+   * left as it is.
+   */
+  public CalendarSnapshot withEvents(Collection<Event> added) {
+    for (Event event : added) {
+      if (event == null) {
+        throw new IllegalArgumentException("events cannot contain null");
+      }
+    }
+
+    List<Event> events = new ArrayList<>(this.events.size() + added.size());
+    events.addAll(this.events);
+    events.addAll(added);
+    return next(events);
+  }
+
+  /**
+   * Returns a new snapshot without the first event that is equal to {@code removed}, or this
+   * snapshot if there is no such event.
+   */
+  public CalendarSnapshot withoutEvent(Event removed) {
+    int position = events.indexOf(removed);
+    if (position < 0) {
+      return this;
+    }
+
+    List<Event> events = new ArrayList<>(this.events.size() - 1);
+    events.addAll(this.events.subList(0, position));
+    events.addAll(this.events.subList(position + 1, this.events.size()));
+    return next(events);
+  }
+
+  /**
+   * Returns a new snapshot where the first event that is equal to {@code old} is replaced by
+   * {@code updated} in the same position, or this snapshot if there is no such event.
+   */
+  public CalendarSnapshot withEventReplaced(Event old, Event updated) {
+    if (updated == null) {
+      throw new IllegalArgumentException("updated cannot be null");
+    }
+    int position = events.indexOf(old);
+    if (position < 0) {
+      return this;
+    }
+
+    List<Event> events = new ArrayList<>(this.events);
+    events.set(position, updated);
+    return next(events);
+  }
+
+  /**
+   * Returns the snapshot after this one, holding {@code events}. The list must not be changed
+   * afterwards, since the snapshot keeps it instead of copying it.
+   */
+  CalendarSnapshot next(List<Event> events) {
+    return new CalendarSnapshot(Collections.unmodifiableList(events), version + 1);
+  }
+
+  /**
+   * Holds a value that is built by the first thread to ask for it. The thread that wins the
+   * compare-and-set builds it, and every other thread waits for that build to finish.
+   */
+  private static final class Lazy<T> {
+    private final Supplier<T> build;
+    private final AtomicReference<FutureTask<T>> task = new AtomicReference<>();
+
+    Lazy(Supplier<T> build) {
+      this.build = build;
+    }
+
+    T get() {
+      FutureTask<T> task = this.task.get();
+      if (task == null) {
+        FutureTask<T> created = new FutureTask<>(build::get);
+        if (this.task.compareAndSet(null, created)) {
+          created.run();
+          task = created;
+        } else {
+          task = this.task.get();
+        }
+      }
+
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            return task.get();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      } catch (ExecutionException e) {
+        // Let the next caller try again rather than keep the failure.
+        this.task.compareAndSet(task, null);
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw (RuntimeException) e.getCause();
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
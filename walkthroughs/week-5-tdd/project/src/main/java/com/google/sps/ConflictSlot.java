@@ -0,0 +1,76 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A time for a meeting that some of the required attendees cannot come to, together with who they
+ * are. Returned when no time works for everyone. Slots are considered read-only.
+ */
+public final class ConflictSlot {
+  private final TimeRange when;
+  private final List<String> conflicts;
+
+  /**
+   * Creates a new slot.
+   *
+   * @param when The time of the slot. Must be non-null.
+   * @param conflicts The attendees who are busy during some of the slot. Must be non-null.
+   */
+  public ConflictSlot(TimeRange when, List<String> conflicts) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (conflicts == null) {
+      throw new IllegalArgumentException("conflicts cannot be null. Use empty list instead.");
+    }
+
+    this.when = when;
+    this.conflicts = Collections.unmodifiableList(conflicts);
+  }
+
+  /**
+   * Returns the time of this slot.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns a read-only list of the attendees who are busy during some of this slot.
+   */
+  public List<String> getConflicts() {
+    return conflicts;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * when.hashCode() + conflicts.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ConflictSlot
+        && when.equals(((ConflictSlot) other).when)
+        && conflicts.equals(((ConflictSlot) other).conflicts);
+  }
+
+  @Override
+  public String toString() {
+    return when + " without " + conflicts;
+  }
+}
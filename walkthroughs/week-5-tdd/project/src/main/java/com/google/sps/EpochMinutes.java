@@ -0,0 +1,69 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Helpers for using {@code TimeRange} on calendars that span more than one day. Times are counted
+ * in minutes since midnight UTC on 1970-01-01, which an {@code int} can hold until the year 6053.
+ *
+ * The single day used by the rest of the calendar is day zero of this model, so a time from
+ * {@link TimeRange#getTimeInMinutes} is also the epoch minute of that time on 1970-01-01.
+ */
+public final class EpochMinutes {
+  public static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private EpochMinutes() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the epoch minute of midnight at the start of {@code date}.
+   */
+  public static int startOfDay(LocalDate date) {
+    return Math.toIntExact(Math.multiplyExact(date.toEpochDay(), (long) MINUTES_PER_DAY));
+  }
+
+  /**
+   * Returns the epoch minute of the given time of day on {@code date}.
+   */
+  public static int of(LocalDate date, int hours, int minutes) {
+    return startOfDay(date) + TimeRange.getTimeInMinutes(hours, minutes);
+  }
+
+  /**
+   * Returns the epoch minute of {@code time}, ignoring any seconds.
+   */
+  public static int of(LocalDateTime time) {
+    return of(time.toLocalDate(), time.getHour(), time.getMinute());
+  }
+
+  /**
+   * Returns the date and time of {@code epochMinute}.
+   */
+  public static LocalDateTime toDateTime(int epochMinute) {
+    LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+    return date.atStartOfDay().plusMinutes(Math.floorMod(epochMinute, MINUTES_PER_DAY));
+  }
+
+  /**
+   * Returns the range covering {@code days} whole days, starting at midnight on {@code first}.
+   */
+  public static TimeRange days(LocalDate first, int days) {
+    return TimeRange.fromStartDuration(startOfDay(first), Math.multiplyExact(days, MINUTES_PER_DAY));
+  }
+}
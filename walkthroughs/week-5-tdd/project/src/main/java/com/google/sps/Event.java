@@ -28,6 +28,10 @@ public final class Event {
   private final TimeRange when;
   private final Set<String> attendees = new HashSet<>();
 
+  // A read-only view of attendees, made once so that getAttendees() does not allocate. Transient
+  // fields are left out when events are turned into JSON.
+  private final transient Set<String> readOnlyAttendees = Collections.unmodifiableSet(attendees);
+
   /**
    * Creates a new event.
    *
@@ -73,7 +77,7 @@ public final class Event {
   public Set<String> getAttendees() {
     // Return the attendees as an unmodifiable set so that the caller can't change our
     // internal data.
-    return Collections.unmodifiableSet(attendees);
+    return readOnlyAttendees;
   }
 
   @Override
@@ -0,0 +1,245 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * EventCatalog serves pages of events filtered by attendee and time window, for clients that
+ * browse a calendar rather than schedule meetings. Events are kept sorted by start time, with an
+ * {@link IntervalTree} over their times and, for each attendee, the sorted positions of their
+ * events, so a page is found without looking at the events that do not match.
+ *
+ * Pages are chained with cursors that name the last event of the previous page by its start time
+ * and its position in the calendar. Added events go after the existing ones, so a cursor keeps
+ * working on later snapshots of the same store. Removing an event moves the ones after it up by
+ * one position, so a cursor made before the removal may skip or repeat one event. Catalogs are
+ * considered read-only.
+ */
+public final class EventCatalog {
+  /** One page of events and the cursor for the next page. */
+  public static final class Page {
+    private final List<Event> events;
+    // Null on the last page.
+    private final String next;
+
+    private Page(List<Event> events, String next) {
+      this.events = Collections.unmodifiableList(events);
+      this.next = next;
+    }
+
+    /**
+     * Returns a read-only list of the events on this page, in order of their start times.
+     */
+    public List<Event> getEvents() {
+      return events;
+    }
+
+    /**
+     * Returns the cursor for the page after this one, or {@code null} if this is the last page.
+     */
+    public String getNext() {
+      return next;
+    }
+  }
+
+  private final List<Event> events;
+
+  // The events in order of start time, then of position in the calendar. Each event's key packs
+  // its start in the high bits and its position in the low bits, so the keys are sorted too.
+  private final List<Event> sorted;
+  private final long[] keys;
+  private final IntervalTree tree;
+
+  // For every attendee, the sorted positions of their events in ascending order.
+  private final Map<String, int[]> attendeeEvents = new HashMap<>();
+
+  /**
+   * Creates a new catalog of the given events.
+   *
+   * @param events The events of the calendar, in the order they were added. Must be non-null.
+   */
+  public EventCatalog(List<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty list instead.");
+    }
+
+    this.events = events;
+    keys = new long[events.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = ((long) events.get(i).getWhen().start() << 32) | i;
+    }
+    Arrays.sort(keys);
+
+    sorted = new ArrayList<>(keys.length);
+    List<TimeRange> times = new ArrayList<>(keys.length);
+    Map<String, Integer> counts = new HashMap<>();
+    for (long key : keys) {
+      Event event = events.get((int) key);
+      sorted.add(event);
+      times.add(event.getWhen());
+      for (String attendee : event.getAttendees()) {
+        counts.merge(attendee, 1, Integer::sum);
+      }
+    }
+    tree = new IntervalTree(times);
+
+    for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+      attendeeEvents.put(entry.getKey(), new int[entry.getValue()]);
+    }
+    Map<String, Integer> filled = new HashMap<>();
+    for (int i = 0; i < sorted.size(); i++) {
+      for (String attendee : sorted.get(i).getAttendees()) {
+        int count = filled.merge(attendee, 1, Integer::sum);
+        attendeeEvents.get(attendee)[count - 1] = i;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of events in this catalog.
+   */
+  public int size() {
+    return events.size();
+  }
+
+  /**
+   * Returns the first {@code limit} events after {@code cursor} that {@code attendee} goes to and
+   * that overlap {@code window}.
+   *
+   * @param attendee The attendee whose events to return, or {@code null} for everyone's events.
+   * @param window The time that events must overlap, or {@code null} for any time.
+   * @param cursor The next cursor of the previous page, or {@code null} for the first page.
+   * @param limit The most events to return. Must be positive.
+   * @throws IllegalArgumentException if the cursor is not one that this class made.
+   */
+  public Page find(String attendee, TimeRange window, String cursor, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+
+    long after = cursor == null ? Long.MIN_VALUE : parseCursor(cursor);
+    if (window != null && window.duration() <= 0) {
+      return new Page(new ArrayList<Event>(), null);
+    }
+
+    List<Event> page = new ArrayList<>(Math.min(limit, 64));
+    long[] last = {0};
+    // Take one event more than the limit to find out whether there is a next page.
+    IntPredicate collector =
+        position -> {
+          if (page.size() == limit) {
+            return false;
+          }
+          page.add(sorted.get(position));
+          last[0] = keys[position];
+          return true;
+        };
+
+    boolean more;
+    if (attendee != null) {
+      more = !forEachAttendeeEvent(attendee, window, after, collector);
+    } else if (window != null) {
+      more = !forEachOverlapping(window, after, collector);
+    } else {
+      more = !forEachFrom(firstAfter(after), keys.length, collector);
+    }
+    return new Page(page, more ? Long.toString(last[0], 36) : null);
+  }
+
+  /** Visits the events of attendee after the given key that overlap window, if it is not null. */
+  private boolean forEachAttendeeEvent(
+      String attendee, TimeRange window, long after, IntPredicate visitor) {
+    int[] positions = attendeeEvents.get(attendee);
+    if (positions == null) {
+      return true;
+    }
+
+    int lo = 0;
+    int hi = positions.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (keys[positions[mid]] > after) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+
+    for (int i = lo; i < positions.length; i++) {
+      TimeRange when = sorted.get(positions[i]).getWhen();
+      if (window != null && when.start() >= window.end()) {
+        break;
+      }
+      if ((window == null || when.end() > window.start()) && !visitor.test(positions[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Visits the events after the given key that overlap window. */
+  private boolean forEachOverlapping(TimeRange window, long after, IntPredicate visitor) {
+    // The events that start before the window and run into it come first. Only these need the
+    // tree, since every other overlapping event starts inside the window.
+    IntStream.Builder spanning = IntStream.builder();
+    tree.forEachOverlapping(
+        TimeRange.fromStartDuration(window.start(), 1),
+        position -> {
+          if (sorted.get(position).getWhen().start() < window.start()) {
+            spanning.add(position);
+          }
+        });
+    for (int position : spanning.build().toArray()) {
+      if (keys[position] > after && !visitor.test(position)) {
+        return false;
+      }
+    }
+
+    int from = Math.max(firstAfter(after), firstAfter(((long) window.start() << 32) - 1));
+    int to = firstAfter(((long) window.end() << 32) - 1);
+    return forEachFrom(from, to, visitor);
+  }
+
+  /** Visits the sorted positions in [from, to). */
+  private static boolean forEachFrom(int from, int to, IntPredicate visitor) {
+    for (int position = from; position < to; position++) {
+      if (!visitor.test(position)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the first sorted position whose key is greater than {@code key}. */
+  private int firstAfter(long key) {
+    int position = Arrays.binarySearch(keys, key);
+    return position < 0 ? -position - 1 : position + 1;
+  }
+
+  private static long parseCursor(String cursor) {
+    try {
+      return Long.parseLong(cursor, 36);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid cursor: " + cursor);
+    }
+  }
+}
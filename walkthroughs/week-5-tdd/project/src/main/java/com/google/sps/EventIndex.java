@@ -0,0 +1,137 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * EventIndex is an inverted index from each attendee to the times they are busy. It is built once
+ * from a collection of events so that a meeting query only has to look at the events of the people
+ * it asks about, instead of scanning every event on the calendar. Indexes are considered read-only.
+ *
+ * The index also keeps one bit per minute of busy time for {@code queryByMinute}, but only when
+ * every event falls inside {@link TimeRange#WHOLE_DAY}. Indexes of events that span several days
+ * have no bitmaps, and only the interval based queries can be used with them.
+ */
+public final class EventIndex {
+  private static final IntervalList NO_INTERVALS = new IntervalList();
+
+  // For every attendee, their busy times as a normalized IntervalList, so the intervals are sorted
+  // by start and overlapping or touching intervals have already been merged.
+  private final Map<String, IntervalList> busyIntervals = new HashMap<>();
+
+  // For every attendee, the same busy times as one bit per minute of the day. Empty unless the
+  // index covers a single day.
+  private final Map<String, long[]> busyBitmaps = new HashMap<>();
+
+  // Whether every event is inside the day that the bitmaps cover.
+  private final boolean singleDay;
+
+  /**
+   * Creates a new index over the given events.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public EventIndex(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty collection instead.");
+    }
+
+    boolean singleDay = true;
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      singleDay &= when.start() >= TimeRange.WHOLE_DAY.start()
+          && when.end() <= TimeRange.WHOLE_DAY.end();
+      for (String attendee : event.getAttendees()) {
+        IntervalList intervals = busyIntervals.get(attendee);
+        if (intervals == null) {
+          intervals = new IntervalList();
+          busyIntervals.put(attendee, intervals);
+        }
+        intervals.add(when.start(), when.end());
+      }
+    }
+
+    this.singleDay = singleDay;
+    for (Map.Entry<String, IntervalList> entry : busyIntervals.entrySet()) {
+      IntervalList intervals = entry.getValue().normalize();
+      if (singleDay) {
+        busyBitmaps.put(entry.getKey(), MinuteBitmap.fromIntervals(intervals));
+      }
+    }
+  }
+
+  /**
+   * Creates a new index over the given events.
+   */
+  public static EventIndex of(Event... events) {
+    return new EventIndex(Arrays.asList(events));
+  }
+
+  /**
+   * Returns a read-only set of every attendee that has at least one event in this index.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(busyIntervals.keySet());
+  }
+
+  /**
+   * Returns the number of disjoint busy intervals for {@code attendee}, or zero if they have no
+   * events in this index.
+   */
+  public int getBusyCount(String attendee) {
+    return getBusyIntervals(attendee).size();
+  }
+
+  /**
+   * Returns a read-only list of the busy times of {@code attendee}, sorted by start and with
+   * overlapping times merged.
+   */
+  public List<TimeRange> getBusyTimes(String attendee) {
+    return getBusyIntervals(attendee).asTimeRanges();
+  }
+
+  /**
+   * Returns the busy intervals of {@code attendee}. The list is shared with the index and must not
+   * be modified.
+   */
+  IntervalList getBusyIntervals(String attendee) {
+    IntervalList intervals = busyIntervals.get(attendee);
+    return intervals == null ? NO_INTERVALS : intervals;
+  }
+
+  /**
+   * Returns whether every event in this index is inside {@link TimeRange#WHOLE_DAY}, so that the
+   * busy bitmaps hold all of the busy time.
+   */
+  boolean isSingleDay() {
+    return singleDay;
+  }
+
+  /**
+   * Returns the busy minutes of {@code attendee} as a {@link MinuteBitmap}, or {@code null} if they
+   * have no events in this index or the index is not {@linkplain #isSingleDay single day}. The
+   * array is shared with the index and must not be modified.
+   */
+  long[] getBusyBitmap(String attendee) {
+    return busyBitmaps.get(attendee);
+  }
+}
@@ -0,0 +1,168 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Imports events into an {@link EventStore} from JSON or CSV. Both formats are read one event at a
+ * time and handed to an {@link EventStore.Import} in batches, so neither the whole document nor a
+ * second list of all its events is ever held in memory. The import is committed at the end, so the
+ * store publishes a new snapshot once per file rather than once per batch, and a file that fails to
+ * parse adds nothing.
+ *
+ * The JSON is an array of events in the form written by {@link SchedulerJson}. Each CSV line is
+ * {@code title,start,duration,attendees} with the times in minutes and the attendees separated by
+ * semicolons. Fields may be wrapped in double quotes, with {@code ""} for a quote inside them, but
+ * cannot span lines. A first line starting with {@code title} is taken to be a header and skipped.
+ */
+public final class EventLoader {
+  // The number of events handed to the import at once.
+  private static final int BATCH_SIZE = 10_000;
+
+  private EventLoader() {
+    // Disallow instances.
+  }
+
+  /**
+   * Reads a JSON array of events from {@code in} into {@code store} and returns how many were read.
+   *
+   * @throws IOException if the JSON is malformed or an event in it is not valid.
+   */
+  public static int loadJson(Reader in, EventStore store) throws IOException {
+    TypeAdapter<Event> adapter = SchedulerJson.GSON.getAdapter(Event.class);
+    Batch batch = new Batch(store);
+
+    JsonReader reader = SchedulerJson.GSON.newJsonReader(in);
+    reader.beginArray();
+    while (reader.hasNext()) {
+      String path = reader.getPath();
+      try {
+        batch.add(adapter.read(reader));
+      } catch (IllegalArgumentException | IllegalStateException | JsonParseException e) {
+        throw new IOException("event " + (batch.count + 1) + " at " + path + ": " + e.getMessage(),
+            e);
+      }
+    }
+    reader.endArray();
+    return batch.finish();
+  }
+
+  /**
+   * Reads CSV lines of events from {@code in} into {@code store} and returns how many were read.
+   *
+   * @throws IOException if a line does not have four fields, its times are not numbers or it is
+   *     not a valid event.
+   */
+  public static int loadCsv(Reader in, EventStore store) throws IOException {
+    BufferedReader lines =
+        in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    Batch batch = new Batch(store);
+
+    int lineNumber = 0;
+    String line;
+    while ((line = lines.readLine()) != null) {
+      lineNumber++;
+      if (line.isEmpty() || (lineNumber == 1 && line.startsWith("title"))) {
+        continue;
+      }
+
+      List<String> fields = splitCsv(line);
+      if (fields.size() != 4) {
+        throw new IOException(
+            "line " + lineNumber + ": expected 4 fields but found " + fields.size());
+      }
+      try {
+        TimeRange when = TimeRange.fromStartDuration(
+            Integer.parseInt(fields.get(1).trim()), Integer.parseInt(fields.get(2).trim()));
+        String names = fields.get(3);
+        List<String> attendees =
+            names.isEmpty() ? new ArrayList<String>() : Arrays.asList(names.split(";"));
+        batch.add(new Event(fields.get(0), when, attendees));
+      } catch (IllegalArgumentException e) {
+        throw new IOException("line " + lineNumber + ": " + e.getMessage(), e);
+      }
+    }
+    return batch.finish();
+  }
+
+  /** Splits one CSV line into its fields, removing any quotes around them. */
+  private static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /** Collects events and hands them to the import whenever a full batch has been read. */
+  private static final class Batch {
+    private final EventStore.Import pending;
+    private final List<Event> events = new ArrayList<>(BATCH_SIZE);
+    private int count;
+
+    Batch(EventStore store) {
+      this.pending = store.beginImport();
+    }
+
+    void add(Event event) {
+      events.add(event);
+      count++;
+      if (events.size() == BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    int finish() {
+      flush();
+      pending.commit();
+      return count;
+    }
+
+    private void flush() {
+      if (!events.isEmpty()) {
+        pending.addAll(events);
+        events.clear();
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.Collection;
+
+/**
+ * EventStore holds the events on the calendar that meeting queries are answered against. Stores
+ * may be read by many threads at once while events are being changed.
+ */
+public interface EventStore {
+  /**
+   * Returns the current snapshot of the events in this store. It never changes, so the events and
+   * the version it reports always agree with each other.
+   */
+  CalendarSnapshot getSnapshot();
+
+  /**
+   * Returns a read-only collection of the events in this store. The collection does not change
+   * when the events of the store change later.
+   */
+  Collection<Event> getEvents();
+
+  /**
+   * Returns the number of events in this store.
+   */
+  int size();
+
+  /**
+   * Returns a number that changes every time the events in this store change, so that anything
+   * worked out from the events can tell when it is out of date.
+   */
+  long getVersion();
+
+  /**
+   * Adds one event to this store.
+   */
+  void add(Event event);
+
+  /**
+   * Adds many events to this store as a single change.
+   */
+  void addAll(Collection<Event> events);
+
+  /**
+   * Removes one event that is equal to {@code event} from this store.
+   *
+   * @return Whether there was such an event.
+   */
+  boolean remove(Event event);
+
+  /**
+   * Replaces one event that is equal to {@code old} with {@code updated}, as a single change, so
+   * that no reader sees the store with both or neither of them.
+   *
+   * @return Whether there was an event to replace.
+   */
+  boolean replace(Event old, Event updated);
+
+  /**
+   * Starts adding a large number of events in batches. None of them can be seen until the import
+   * is committed, and then they are all added as a single change.
+   */
+  Import beginImport();
+
+  /**
+   * Collects the events of one import, so that they are added to the store without building a
+   * new snapshot for every batch.
+   */
+  interface Import {
+    /**
+     * Adds a batch of events to the import.
+     */
+    void addAll(Collection<Event> events);
+
+    /**
+     * Adds every event of the import to the store as a single change. An import can only be
+     * committed once.
+     */
+    void commit();
+  }
+}
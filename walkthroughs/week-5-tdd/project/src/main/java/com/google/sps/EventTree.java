@@ -0,0 +1,63 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * EventTree is a read-only store of events that can quickly find the events happening during a
+ * window of time, using an {@link IntervalTree} over the times of the events. It is meant for
+ * calendars that span many days, where a query only cares about a few weeks of them.
+ */
+public final class EventTree {
+  private final List<Event> events;
+  private final IntervalTree tree;
+
+  /**
+   * Creates a new store holding the given events.
+   *
+   * @param events The events to store. Must be non-null.
+   */
+  public EventTree(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty collection instead.");
+    }
+
+    this.events = new ArrayList<>(events);
+    List<TimeRange> times = new ArrayList<>(this.events.size());
+    for (Event event : this.events) {
+      times.add(event.getWhen());
+    }
+    this.tree = new IntervalTree(times);
+  }
+
+  /**
+   * Returns the number of events in this store.
+   */
+  public int size() {
+    return events.size();
+  }
+
+  /**
+   * Returns the events that overlap {@code window}, in order of their start times.
+   */
+  public List<Event> getEvents(TimeRange window) {
+    List<Event> overlapping = new ArrayList<>();
+    tree.forEachOverlapping(window, id -> overlapping.add(events.get(id)));
+    return overlapping;
+  }
+}
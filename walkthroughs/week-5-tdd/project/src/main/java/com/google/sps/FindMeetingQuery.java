@@ -18,76 +18,994 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class FindMeetingQuery {
+  // Batches with at most this many requests are answered on a single thread.
+  private static final int BATCH_THRESHOLD = 64;
+
+  // Requests with more required attendees than this work out their free times in parallel, in
+  // chunks of at most this many attendees.
+  private static final int ATTENDEE_THRESHOLD = 512;
+
+  // Unless the request sets an alignment or step, ranked slots start on multiples of this many
+  // minutes, so suggestions are spread out.
+  private static final int SUGGESTION_STEP = 15;
+
+  // Per-thread scratch bitmap for {@code queryByMinute}, so the hot path only allocates the result.
+  private static final ThreadLocal<long[]> BUSY_MINUTES =
+      ThreadLocal.withInitial(() -> new long[MinuteBitmap.WORDS]);
 
   /**
-   * This function returns a list of potential time ranges for a meeting 
+   * This function returns a list of potential time ranges for a meeting
    * during the day. The request contains the attendees and the duration
-   * of the meeting, and events contains the other events that are 
+   * of the meeting, and events contains the other events that are
    * scheduled already. If an attendee of the meeting request is an
    * attendee of another event, the times that the other event covers
    * are no longer possible for the meeting.
+   *
+   * Optional attendees are then used to narrow the result down: only the
+   * times that all required attendees and as many optional attendees as
+   * possible can make are returned. If no optional attendee can make any
+   * of the times, the times for the required attendees are returned (or
+   * nothing, when there are no required attendees).
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-    Collection<TimeRange> possibleTimes = new ArrayList<TimeRange>();
-    
-    // If the request is over a day, then there are no time slots available
-    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
-        return possibleTimes;
+    return query(events, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but looks for times inside {@code window}
+   * instead of inside a single day. Together with {@link EpochMinutes} this can be used to search a
+   * horizon of several weeks in one call.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events, MeetingRequest request, TimeRange window) {
+    return query(events, Collections.<RecurringEvent>emptyList(), request, window);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but also takes events that
+   * repeat. The occurrences of a recurring event are only worked out inside the window, so the
+   * query costs the same whether the event repeats for a week or for a year.
+   */
+  public Collection<TimeRange> query(Collection<Event> events,
+      Collection<RecurringEvent> recurringEvents, MeetingRequest request, TimeRange window) {
+    // If the request is longer than the window, then there are no time slots available
+    if (request.getDuration() > window.duration()) {
+      return new ArrayList<TimeRange>();
     }
 
-    // Start with the whole day available
-    possibleTimes.add(TimeRange.WHOLE_DAY);
+    // Give every attendee of the request an id in a dictionary of this query's own, and map each id
+    // to whether it is required and to its slot among the optional attendees. Each event's
+    // attendees are then looked up once, so one pass collects the busy times of the required
+    // attendees and groups the events of the optional ones, whatever the number of optional
+    // attendees. Optional attendees without events stay free for the whole window.
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    for (String attendee : request.getAttendees()) {
+      dictionary.getId(attendee);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      dictionary.getId(attendee);
+    }
+    boolean[] required = new boolean[dictionary.size()];
+    int[] optionalSlots = new int[dictionary.size()];
+    Arrays.fill(optionalSlots, -1);
+    for (String attendee : request.getAttendees()) {
+      required[dictionary.lookup(attendee)] = true;
+    }
+    int optionalCount = 0;
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalSlots[dictionary.lookup(attendee)] = optionalCount++;
+    }
+    IntervalList[] optionalTimes = new IntervalList[optionalCount];
+    for (int i = 0; i < optionalCount; i++) {
+      optionalTimes[i] = new IntervalList();
+    }
 
-    if (request.getAttendees().size() == 0) {
-        return possibleTimes;
+    IntervalList busyTimes = new IntervalList();
+    if (dictionary.size() > 0) {
+      for (Event event : events) {
+        TimeRange when = event.getWhen();
+        if (!isDuring(when, window)) {
+          continue;
+        }
+        boolean busy = false;
+        for (String attendee : event.getAttendees()) {
+          int id = dictionary.lookup(attendee);
+          if (id >= 0) {
+            busy |= required[id];
+            if (optionalSlots[id] >= 0) {
+              optionalTimes[optionalSlots[id]].add(when.start(), when.end());
+            }
+          }
+        }
+        if (busy) {
+          busyTimes.add(when.start(), when.end());
+        }
+      }
+      for (RecurringEvent event : recurringEvents) {
+        boolean busy = false;
+        for (String attendee : event.getAttendees()) {
+          int id = dictionary.lookup(attendee);
+          if (id >= 0) {
+            busy |= required[id];
+            if (optionalSlots[id] >= 0) {
+              addOccurrences(event.getRule(), window, optionalTimes[optionalSlots[id]]);
+            }
+          }
+        }
+        if (busy) {
+          addOccurrences(event.getRule(), window, busyTimes);
+        }
+      }
+    }
+
+    IntervalList requiredTimes = getFreeTimes(busyTimes, window, request.getDuration());
+    if (optionalCount == 0) {
+      return withGranularity(requiredTimes, request).asTimeRanges();
     }
 
-    // update possible meeting times based on existing events that have attendees from the request
-    for (Event event : events) {
-        if (!Collections.disjoint(event.getAttendees(), request.getAttendees())) {
-            possibleTimes = getNewPossibleTimes(possibleTimes, event.getWhen(), request.getDuration());
+    List<IntervalList> optionalFree = new ArrayList<>(optionalCount);
+    for (IntervalList times : optionalTimes) {
+      optionalFree.add(times.normalize().complement(window.start(), window.end()));
+    }
+    return withGranularity(withOptionalAttendees(requiredTimes, optionalFree, request), request)
+        .asTimeRanges();
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but only looks at the events of
+   * {@code tree} that overlap the window instead of every event on the calendar.
+   */
+  public Collection<TimeRange> query(EventTree tree, MeetingRequest request, TimeRange window) {
+    return query(tree.getEvents(window), request, window);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but looks up the busy times of the
+   * requested attendees in a prebuilt {@code EventIndex}. The cost of the query depends only on the
+   * number of events the requested attendees have, not on the size of the whole calendar.
+   */
+  public Collection<TimeRange> query(EventIndex index, MeetingRequest request) {
+    return query(index, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(EventIndex, MeetingRequest)}, but looks for times inside {@code window}.
+   * The busy intervals of each attendee are sorted, so the ones inside the window are found with a
+   * binary search and the rest of their calendar is never read.
+   */
+  public Collection<TimeRange> query(EventIndex index, MeetingRequest request, TimeRange window) {
+    if (request.getDuration() > window.duration()) {
+      return new ArrayList<TimeRange>();
+    }
+
+    IntervalList freeTimes = getFreeTimes(index, request, window);
+    return withGranularity(withOptionalAttendees(freeTimes, index, request, window), request)
+        .asTimeRanges();
+  }
+
+  /**
+   * Returns the {@code limit} best meeting slots in {@code window} according to {@code policy},
+   * best first. Every slot is exactly as long as the meeting, works for all the required attendees
+   * and starts on a multiple of the request's alignment and at least its step after the previous
+   * candidate, both 15 minutes by default. Unlike {@link #query}, slots that some optional
+   * attendees cannot come to are still suggested, and the policy decides how much that matters.
+   *
+   * Slots are scanned in order of their start times while the best ones are kept in a heap of at
+   * most {@code limit} slots, and the scan stops as soon as the policy shows that no later slot can
+   * beat the worst one in the heap.
+   */
+  public List<TimeRange> queryRanked(EventIndex index, MeetingRequest request, TimeRange window,
+      SlotPolicy policy, int limit) {
+    if (policy == null) {
+      throw new IllegalArgumentException("policy cannot be null");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    if (request.getDuration() > window.duration()) {
+      return new ArrayList<TimeRange>();
+    }
+
+    int duration = (int) request.getDuration();
+    IntervalList requiredTimes = getFreeTimes(index, request, window);
+    StartPieces pieces =
+        new StartPieces(requiredTimes, getOptionalFreeTimes(index, request, window), duration);
+    int optionalCount = request.getOptionalAttendees().size();
+    boolean granularitySet = request.getAlignment() > 0 || request.getStep() > 0;
+    int alignment = granularitySet ? request.getStartAlignment() : SUGGESTION_STEP;
+    int step = request.getStep() > 0 ? request.getStep() : alignment;
+
+    // The heap keeps the worst of the best slots so far on top, packed as {score, start}.
+    Comparator<long[]> ranking = (a, b) -> a[0] != b[0]
+        ? Long.compare(a[0], b[0])
+        : Long.compare(a[1], b[1]);
+    PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+    // Walk the same grid of starts as withGranularity, which restarts at each required gap rather
+    // than at each piece, so that starts stay a step apart. The pieces only give the conflicts.
+    int piece = 0;
+    scan:
+    for (int range = 0; range < requiredTimes.size(); range++) {
+      int lastStart = requiredTimes.end(range) - duration;
+      for (int start = alignUp(requiredTimes.start(range), alignment); start <= lastStart;
+          start = alignUp(start + step, alignment)) {
+        while (pieces.starts.end(piece) <= start) {
+          piece++;
+        }
+        int conflicts = optionalCount - pieces.counts[piece];
+
+        // Later slots start later too, so once the bound can't beat the worst slot kept, stop.
+        if (best.size() == limit && policy.lowerBound(start) >= best.peek()[0]) {
+          break scan;
         }
+
+        long[] slot = {policy.score(start, conflicts), start};
+        if (best.size() < limit) {
+          best.add(slot);
+        } else if (ranking.compare(slot, best.peek()) < 0) {
+          best.poll();
+          best.add(slot);
+        }
+      }
+    }
+
+    long[][] ranked = best.toArray(new long[best.size()][]);
+    Arrays.sort(ranked, ranking);
+    List<TimeRange> slots = new ArrayList<>(ranked.length);
+    for (long[] slot : ranked) {
+      slots.add(TimeRange.fromStartDuration((int) slot[1], duration));
     }
+    return slots;
+  }
+
+  /**
+   * Same as {@link #queryRanked(EventIndex, MeetingRequest, TimeRange, SlotPolicy, int)}, but
+   * indexes {@code events} first.
+   */
+  public List<TimeRange> queryRanked(Collection<Event> events, MeetingRequest request,
+      TimeRange window, SlotPolicy policy, int limit) {
+    return queryRanked(new EventIndex(events), request, window, policy, limit);
+  }
 
-    return possibleTimes;
+  /**
+   * Returns every pairing of a time in {@code window} that works for the attendees with a room
+   * that is free for all of that time and fits everyone invited, required and optional. See
+   * {@link #queryRooms(EventIndex, RoomIndex, MeetingRequest, TimeRange, int)}.
+   */
+  public List<RoomSlot> queryRooms(
+      EventIndex index, RoomIndex rooms, MeetingRequest request, TimeRange window) {
+    int people = request.getAttendees().size() + request.getOptionalAttendees().size();
+    return queryRooms(index, rooms, request, window, people);
   }
 
-  /** 
-   * Update possible meeting times by excluding time ranges of an event
+  /**
+   * Returns every pairing of a time in {@code window} that works for the attendees, in the sense
+   * of {@link #query(EventIndex, MeetingRequest, TimeRange)}, with a room holding at least
+   * {@code minCapacity} people that is free for all of that time. Each time is as long as possible
+   * and at least as long as the meeting, after the alignment and step of the request are applied
+   * to it. The slots are sorted by start, then smallest room first.
    *
-   * For example, if possibleTimes={[12am,1am],[3am, 4am]}, eventTime=[3.30-4.30am], requestDuration=60min,
-   * then {[12am,1am]} is returned after the function executes.
-   */
-  private Collection<TimeRange> getNewPossibleTimes(Collection<TimeRange> possibleTimes, TimeRange eventTime, long requestDuration) {
-    Collection<TimeRange> newTimes = new ArrayList<TimeRange>();
-
-    // Check for time ranges that contain the event in question
-    for (TimeRange timeSlot : possibleTimes) {
-        if (timeSlot.overlaps(eventTime)) {
-            if (timeSlot.contains(eventTime.start())) {
-                TimeRange toAdd = TimeRange.fromStartEnd(timeSlot.start(), eventTime.start(), false);
-                // Only add new time slots that are long enough to meet the request
-                if (toAdd.duration() >= requestDuration) {
-                    newTimes.add(toAdd);
-                }
-            }
+   * Each free time of the attendees is looked up in {@code rooms}, which only visits the free
+   * intervals of big enough rooms that overlap it, so the rooms that are too small or busy are
+   * never scanned.
+   */
+  public List<RoomSlot> queryRooms(EventIndex index, RoomIndex rooms, MeetingRequest request,
+      TimeRange window, int minCapacity) {
+    List<RoomSlot> slots = new ArrayList<>();
+    if (request.getDuration() > window.duration()) {
+      return slots;
+    }
 
-            if (timeSlot.contains(eventTime.end())) {
-                TimeRange toAdd = TimeRange.fromStartEnd(eventTime.end(), timeSlot.end(), false);
-                // Only add new time slots that are long enough to meet the request
-                if (toAdd.duration() >= requestDuration) {
-                    newTimes.add(toAdd);
-                }
+    IntervalList freeTimes = getFreeTimes(index, request, window);
+    freeTimes = withOptionalAttendees(freeTimes, index, request, window);
+    long duration = request.getDuration();
+    IntervalList roomTime = new IntervalList(1);
+    for (TimeRange free : freeTimes.asTimeRanges()) {
+      rooms.forEachFreeRoom(
+          free,
+          minCapacity,
+          (room, start, end) -> {
+            if (end - start < duration) {
+              return;
             }
-        } else {
-            newTimes.add(timeSlot);
+            roomTime.clear().add(start, end);
+            for (TimeRange when : withGranularity(roomTime, request).asTimeRanges()) {
+              slots.add(new RoomSlot(when, room));
+            }
+          });
+    }
+
+    Collections.sort(slots, Comparator.comparing(RoomSlot::getWhen, TimeRange.ORDER_BY_START)
+        .thenComparingInt(slot -> slot.getRoom().getCapacity())
+        .thenComparing(slot -> slot.getRoom().getName()));
+    return slots;
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but uses the free times that
+   * {@code availability} keeps for every attendee over its window. The query only intersects the
+   * free intervals of the requested attendees, so it never looks at individual events.
+   */
+  public Collection<TimeRange> query(AvailabilityService availability, MeetingRequest request) {
+    TimeRange window = availability.getWindow();
+    if (request.getDuration() > window.duration()) {
+      return new ArrayList<TimeRange>();
+    }
+
+    // Intersect the free intervals of the attendees one at a time, dropping any interval that gets
+    // too short along the way since intersecting can only make it shorter.
+    IntervalList freeTimes = new IntervalList(1).add(window.start(), window.end());
+    freeTimes.removeShorterThan(request.getDuration());
+    for (String attendee : request.getAttendees()) {
+      freeTimes.intersect(availability.getFreeIntervals(attendee))
+          .removeShorterThan(request.getDuration());
+      if (freeTimes.isEmpty()) {
+        break;
+      }
+    }
+
+    if (request.getOptionalAttendees().isEmpty()) {
+      return withGranularity(freeTimes, request).asTimeRanges();
+    }
+    List<IntervalList> optionalFree = new ArrayList<>(request.getOptionalAttendees().size());
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalFree.add(availability.getFreeIntervals(attendee));
+    }
+    return withGranularity(withOptionalAttendees(freeTimes, optionalFree, request), request)
+        .asTimeRanges();
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but reads the busy times of the
+   * attendees from a memory-mapped {@code MappedCalendar}. Only the intervals of the requested
+   * attendees that overlap the window are read from the file, so nothing else is decoded.
+   */
+  public Collection<TimeRange> query(
+      MappedCalendar calendar, MeetingRequest request, TimeRange window) {
+    if (request.getDuration() > window.duration()) {
+      return new ArrayList<TimeRange>();
+    }
+
+    IntervalList freeTimes = new IntervalList(1).add(window.start(), window.end());
+    for (String attendee : request.getAttendees()) {
+      freeTimes.subtract(calendar.getBusyIntervals(attendee, window))
+          .removeShorterThan(request.getDuration());
+      if (freeTimes.isEmpty()) {
+        break;
+      }
+    }
+
+    if (request.getOptionalAttendees().isEmpty()) {
+      return withGranularity(freeTimes, request).asTimeRanges();
+    }
+    List<IntervalList> optionalFree = new ArrayList<>(request.getOptionalAttendees().size());
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalFree.add(
+          calendar.getBusyIntervals(attendee, window).complement(window.start(), window.end()));
+    }
+    return withGranularity(withOptionalAttendees(freeTimes, optionalFree, request), request)
+        .asTimeRanges();
+  }
+
+  /**
+   * Answers many meeting requests against the same events. The events are indexed once and shared
+   * by all the requests, which are then answered in parallel on the common {@code ForkJoinPool}.
+   * The returned list has one answer for each request, in the same order as the requests.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      Collection<Event> events, List<MeetingRequest> requests) {
+    return queryAll(new EventIndex(events), requests);
+  }
+
+  /**
+   * Same as {@link #queryAll(Collection, List)}, but uses a prebuilt {@code EventIndex}.
+   */
+  public List<Collection<TimeRange>> queryAll(EventIndex index, List<MeetingRequest> requests) {
+    // Each task only sets its own positions, and invoke waits for every task, so the list needs no
+    // locking.
+    List<Collection<TimeRange>> answers =
+        new ArrayList<>(Collections.<Collection<TimeRange>>nCopies(requests.size(), null));
+    ForkJoinPool.commonPool().invoke(new BatchQuery(index, requests, answers, 0, requests.size()));
+    return answers;
+  }
+
+  /**
+   * Returns an iterator over the times in {@code window} when all the required attendees are free
+   * for at least the length of the meeting, in order of their start times. The times are found
+   * lazily by merging the attendees' busy intervals, so a caller that stops early never reads the
+   * intervals after the last time it took. Optional attendees are ignored. The alignment and step
+   * of the request are applied to each free time as it is found.
+   */
+  public Iterator<TimeRange> freeTimes(
+      EventIndex index, MeetingRequest request, TimeRange window) {
+    List<IntervalList> busy = new ArrayList<>(request.getAttendees().size());
+    for (String attendee : request.getAttendees()) {
+      busy.add(index.getBusyIntervals(attendee));
+    }
+    return new FreeTimeIterator(busy, window, request);
+  }
+
+  /**
+   * Returns the first time in {@code window} when all the required attendees are free for at least
+   * the length of the meeting, or {@code null} if there is none. The returned time is as long as
+   * possible, or the first slot if the request has a step. See
+   * {@link #freeTimes(EventIndex, MeetingRequest, TimeRange)}.
+   */
+  public TimeRange findFirst(EventIndex index, MeetingRequest request, TimeRange window) {
+    Iterator<TimeRange> times = freeTimes(index, request, window);
+    return times.hasNext() ? times.next() : null;
+  }
+
+  /**
+   * Same as {@link #query(EventIndex, MeetingRequest)}, but works on the per-minute busy bitmaps of
+   * the index. The bitmaps of the requested attendees are OR-ed together word by word and the
+   * combined day is scanned a word at a time for runs of free minutes, so the cost is bounded by
+   * the number of attendees and the length of the day no matter how fragmented calendars are.
+   * With an alignment or step, the aligned starts where the meeting fits are found with shifts and
+   * masks over the free minutes instead of by walking each gap.
+   *
+   * @throws IllegalArgumentException if the index has events outside {@link TimeRange#WHOLE_DAY},
+   *     which the bitmaps cannot hold. Use {@link #query(EventIndex, MeetingRequest, TimeRange)}
+   *     for calendars that span several days.
+   */
+  public Collection<TimeRange> queryByMinute(EventIndex index, MeetingRequest request) {
+    if (!index.isSingleDay()) {
+      throw new IllegalArgumentException("queryByMinute only works on an index of a single day");
+    }
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return new ArrayList<TimeRange>();
+    }
+
+    long[] busyMinutes = BUSY_MINUTES.get();
+    Arrays.fill(busyMinutes, 0L);
+    for (String attendee : request.getAttendees()) {
+      long[] attendeeMinutes = index.getBusyBitmap(attendee);
+      if (attendeeMinutes != null) {
+        for (int word = 0; word < MinuteBitmap.WORDS; word++) {
+          busyMinutes[word] |= attendeeMinutes[word];
         }
+      }
+    }
 
+    IntervalList freeTimes = new IntervalList();
+    int freeStart = MinuteBitmap.nextFree(busyMinutes, 0);
+    while (freeStart < MinuteBitmap.MINUTES) {
+      int freeEnd = MinuteBitmap.nextBusy(busyMinutes, freeStart);
+      freeTimes.add(freeStart, freeEnd);
+      freeStart = MinuteBitmap.nextFree(busyMinutes, freeEnd);
     }
+    freeTimes.removeShorterThan(request.getDuration());
 
-    return newTimes;
+    freeTimes = withOptionalAttendees(freeTimes, index, request, TimeRange.WHOLE_DAY);
+    if (request.getAlignment() == 0 && request.getStep() == 0) {
+      return freeTimes.asTimeRanges();
+    }
+
+    // Mark the minutes where a meeting of the right length fits and that are aligned, then read the
+    // marked starts off the bitmap a word at a time.
+    int duration = (int) request.getDuration();
+    long[] freeMinutes = MinuteBitmap.fromIntervals(freeTimes);
+    long[] starts = MinuteBitmap.runStarts(freeMinutes, duration);
+    long[] aligned = MinuteBitmap.multiplesOf(request.getStartAlignment());
+    for (int word = 0; word < MinuteBitmap.WORDS; word++) {
+      starts[word] &= aligned[word];
+    }
 
+    IntervalList slots = new IntervalList();
+    int start = MinuteBitmap.nextBusy(starts, 0);
+    while (start < MinuteBitmap.MINUTES) {
+      int freeEnd = MinuteBitmap.nextFree(freeMinutes, start);
+      if (request.getStep() == 0) {
+        slots.add(start, freeEnd);
+        start = MinuteBitmap.nextBusy(starts, freeEnd);
+      } else {
+        slots.add(start, start + duration);
+        start = MinuteBitmap.nextBusy(starts, Math.min(start + request.getStep(), freeEnd));
+      }
+    }
+    return slots.asTimeRanges();
+  }
+
+  /**
+   * Returns the times in {@code window} when at least {@code quorum} of the required attendees are
+   * free, for example "any 5 of these 8 reviewers". Each time is as long as possible and at least
+   * as long as the meeting, after the alignment and step of the request are applied. Optional
+   * attendees are ignored.
+   *
+   * Each attendee's merged busy intervals add one to a difference array over the minutes of the
+   * window where they start and take one away where they end, and a single pass over the minutes
+   * turns that into the number of busy attendees. This costs O(intervals + minutes) no matter how
+   * large the quorum is, instead of trying subsets of the attendees.
+   */
+  public Collection<TimeRange> queryQuorum(
+      EventIndex index, MeetingRequest request, TimeRange window, int quorum) {
+    if (quorum <= 0) {
+      throw new IllegalArgumentException("quorum must be positive");
+    }
+
+    Set<String> attendees = new LinkedHashSet<>(request.getAttendees());
+    IntervalList freeTimes = new IntervalList();
+    if (quorum > attendees.size() || request.getDuration() > window.duration()) {
+      return freeTimes.asTimeRanges();
+    }
+
+    // busyChanges[m] is how many more attendees are busy at minute window.start() + m than at the
+    // minute before it.
+    int from = window.start();
+    int[] busyChanges = new int[window.duration() + 1];
+    for (String attendee : attendees) {
+      IntervalList busy = index.getBusyIntervals(attendee);
+      for (int i = busy.firstEndingAfter(from) / 2; i < busy.size(); i++) {
+        if (busy.start(i) >= window.end()) {
+          break;
+        }
+        busyChanges[Math.max(busy.start(i), from) - from]++;
+        busyChanges[Math.min(busy.end(i), window.end()) - from]--;
+      }
+    }
+
+    // Any more busy attendees than this and the quorum cannot be met.
+    int maxBusy = attendees.size() - quorum;
+    int busyCount = 0;
+    int freeStart = -1;
+    for (int minute = 0; minute < busyChanges.length - 1; minute++) {
+      busyCount += busyChanges[minute];
+      if (busyCount <= maxBusy && freeStart < 0) {
+        freeStart = minute;
+      } else if (busyCount > maxBusy && freeStart >= 0) {
+        freeTimes.add(from + freeStart, from + minute);
+        freeStart = -1;
+      }
+    }
+    if (freeStart >= 0) {
+      freeTimes.add(from + freeStart, window.end());
+    }
+    return withGranularity(freeTimes.removeShorterThan(request.getDuration()), request)
+        .asTimeRanges();
+  }
+
+  /**
+   * Same as {@link #queryQuorum(EventIndex, MeetingRequest, TimeRange, int)} for a single day, but
+   * indexes {@code events} first.
+   */
+  public Collection<TimeRange> queryQuorum(
+      Collection<Event> events, MeetingRequest request, int quorum) {
+    return queryQuorum(new EventIndex(events), request, TimeRange.WHOLE_DAY, quorum);
+  }
+
+  /**
+   * Returns the times in {@code window} that the fewest required attendees cannot come to, with
+   * who they are. This is the fallback for when {@link #query} finds nothing, so that callers do
+   * not have to retry with smaller lists of attendees. Each time is as long as possible while the
+   * same attendees conflict with every meeting inside it, and the alignment and step of the request
+   * are applied to each such time. If some time works for everyone, the result is the same as the
+   * times from the query, with no conflicts.
+   *
+   * A meeting starting at t clashes with a busy interval [s, e) exactly when t is in
+   * [s - duration + 1, e), so each attendee's busy intervals are stretched into the start times
+   * they rule out. A difference array over the start times then gives the number of conflicting
+   * attendees at each start in one sweep, which keeps the runs with the lowest count seen so far.
+   */
+  public List<ConflictSlot> queryFewestConflicts(
+      EventIndex index, MeetingRequest request, TimeRange window) {
+    List<ConflictSlot> slots = new ArrayList<>();
+    if (request.getDuration() > window.duration()) {
+      return slots;
+    }
+
+    List<String> attendees = new ArrayList<>(new LinkedHashSet<>(request.getAttendees()));
+    int duration = (int) request.getDuration();
+    int from = window.start();
+    int lastStart = window.end() - duration;
+
+    // For each attendee, the start times that clash with one of their events.
+    List<IntervalList> clashes = new ArrayList<>(attendees.size());
+    int[] conflictChanges = new int[lastStart - from + 2];
+    boolean[] changed = new boolean[lastStart - from + 2];
+    for (String attendee : attendees) {
+      IntervalList busy = index.getBusyIntervals(attendee);
+      IntervalList starts = new IntervalList();
+      for (int i = busy.firstEndingAfter(from) / 2; i < busy.size(); i++) {
+        if (busy.start(i) >= window.end()) {
+          break;
+        }
+        starts.add(busy.start(i) - Math.max(duration, 1) + 1, busy.end(i));
+      }
+      starts.normalize().clip(from, lastStart + 1);
+      clashes.add(starts);
+
+      for (int i = 0; i < starts.size(); i++) {
+        conflictChanges[starts.start(i) - from]++;
+        conflictChanges[starts.end(i) - from]--;
+        changed[starts.start(i) - from] = true;
+        changed[starts.end(i) - from] = true;
+      }
+    }
+
+    // Runs of start times with the fewest conflicts seen so far, in which nobody starts or stops
+    // conflicting.
+    IntervalList runs = new IntervalList();
+    int fewest = Integer.MAX_VALUE;
+    int conflicts = 0;
+    int runStart = -1;
+    for (int start = from; start <= lastStart + 1; start++) {
+      if (runStart >= 0 && (start > lastStart || changed[start - from])) {
+        runs.add(runStart, start);
+        runStart = -1;
+      }
+      if (start > lastStart) {
+        break;
+      }
+
+      conflicts += conflictChanges[start - from];
+      if (conflicts < fewest) {
+        fewest = conflicts;
+        runs.clear();
+      }
+      if (conflicts == fewest && runStart < 0) {
+        runStart = start;
+      }
+    }
+
+    for (int i = 0; i < runs.size(); i++) {
+      int start = runs.start(i);
+      List<String> conflicting = new ArrayList<>(fewest);
+      for (int k = 0; k < attendees.size(); k++) {
+        IntervalList starts = clashes.get(k);
+        int position = starts.firstEndingAfter(start) / 2;
+        if (position < starts.size() && starts.start(position) <= start) {
+          conflicting.add(attendees.get(k));
+        }
+      }
+      IntervalList run = new IntervalList(1).add(start, runs.end(i) - 1 + duration);
+      for (TimeRange when : withGranularity(run, request).asTimeRanges()) {
+        slots.add(new ConflictSlot(when, conflicting));
+      }
+    }
+    return slots;
+  }
+
+  /**
+   * Same as {@link #queryFewestConflicts(EventIndex, MeetingRequest, TimeRange)} for a single day,
+   * but indexes {@code events} first.
+   */
+  public List<ConflictSlot> queryFewestConflicts(
+      Collection<Event> events, MeetingRequest request) {
+    return queryFewestConflicts(new EventIndex(events), request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Returns the gaps of the window that are not covered by any of the busy times and are at least
+   * {@code requestDuration} long, in ascending order. Busy times must overlap the window.
+   *
+   * The busy times are sorted once and merged, so overlapping and nested events become a single
+   * interval before they are cut out of the window. For example, if
+   * busyTimes={[3am,4am],[1am,2am],[1.30am,2.30am]} and requestDuration=60min, then
+   * {[12am,1am],[4am,12am]} is returned.
+   */
+  private static IntervalList getFreeTimes(
+      IntervalList busyTimes, TimeRange window, long requestDuration) {
+    return busyTimes.normalize()
+        .complement(window.start(), window.end())
+        .removeShorterThan(requestDuration);
+  }
+
+  /**
+   * Returns the gaps of the window where all the required attendees in the index are free and that
+   * are at least as long as the meeting. The busy intervals of the attendees are subtracted one at
+   * a time, dropping any gap that gets too short along the way since subtracting can only make it
+   * shorter.
+   *
+   * Requests with more required attendees than {@link #ATTENDEE_THRESHOLD} split the attendees
+   * across the common {@code ForkJoinPool} instead. See {@link FreeTimesTask}.
+   */
+  private static IntervalList getFreeTimes(
+      EventIndex index, MeetingRequest request, TimeRange window) {
+    if (request.getAttendees().size() > ATTENDEE_THRESHOLD) {
+      String[] attendees = request.getAttendees().toArray(new String[0]);
+      return ForkJoinPool.commonPool().invoke(new FreeTimesTask(index, attendees, 0,
+          attendees.length, window, request.getDuration(), new AtomicBoolean()));
+    }
+
+    IntervalList freeTimes = new IntervalList(1).add(window.start(), window.end());
+    for (String attendee : request.getAttendees()) {
+      freeTimes.subtract(index.getBusyIntervals(attendee)).removeShorterThan(request.getDuration());
+      if (freeTimes.isEmpty()) {
+        break;
+      }
+    }
+    return freeTimes;
+  }
+
+  /**
+   * Applies the alignment and step of the request to the free times: each free time is trimmed to
+   * start on an aligned minute, or, with a step, split into meeting-length slots starting on
+   * aligned minutes at least a step apart. Free times with no aligned start left are dropped.
+   * queryByMinute and queryRanked walk the same grid of starts in their own way.
+   */
+  static IntervalList withGranularity(IntervalList freeTimes, MeetingRequest request) {
+    if (request.getAlignment() == 0 && request.getStep() == 0) {
+      return freeTimes;
+    }
+
+    int alignment = request.getStartAlignment();
+    int duration = (int) request.getDuration();
+    IntervalList slots = new IntervalList();
+    for (int i = 0; i < freeTimes.size(); i++) {
+      int start = alignUp(freeTimes.start(i), alignment);
+      int end = freeTimes.end(i);
+      if (request.getStep() == 0) {
+        if (end - start >= duration) {
+          slots.add(start, end);
+        }
+        continue;
+      }
+      for (; start + duration <= end; start = alignUp(start + request.getStep(), alignment)) {
+        slots.add(start, start + duration);
+      }
+    }
+    return slots;
+  }
+
+  /** Returns the first multiple of {@code alignment} at or after {@code time}. */
+  private static int alignUp(int time, int alignment) {
+    return Math.floorDiv(time + alignment - 1, alignment) * alignment;
+  }
+
+  /** Returns the free intervals in the window of each optional attendee in the index. */
+  private static List<IntervalList> getOptionalFreeTimes(
+      EventIndex index, MeetingRequest request, TimeRange window) {
+    List<IntervalList> optionalFree = new ArrayList<>(request.getOptionalAttendees().size());
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalFree.add(index.getBusyIntervals(attendee).complement(window.start(), window.end()));
+    }
+    return optionalFree;
+  }
+
+  /** Adds the times of the occurrences of {@code rule} that overlap the window to {@code times}. */
+  private static void addOccurrences(RecurrenceRule rule, TimeRange window, IntervalList times) {
+    int duration = rule.getDuration();
+    rule.forEachOccurrence(window, start -> times.add(start, start + duration));
+  }
+
+  /** Returns whether {@code time} overlaps {@code window}, ignoring times that only touch it. */
+  private static boolean isDuring(TimeRange time, TimeRange window) {
+    return time.start() < window.end() && time.end() > window.start();
+  }
+
+  /** Looks up the optional attendees of the request in the index and narrows requiredTimes. */
+  private static IntervalList withOptionalAttendees(IntervalList requiredTimes,
+      EventIndex index, MeetingRequest request, TimeRange window) {
+    if (request.getOptionalAttendees().isEmpty()) {
+      return requiredTimes;
+    }
+
+    return withOptionalAttendees(
+        requiredTimes, getOptionalFreeTimes(index, request, window), request);
+  }
+
+  /**
+   * Narrows the times that work for the required attendees down to the times where the greatest
+   * number of optional attendees can also attend.
+   *
+   * Rather than trying subsets of optional attendees, this works on meeting start times. A meeting
+   * of length d can start at s when [s, s+d) fits in a free gap, so every free gap [a, b) of an
+   * optional attendee that is long enough opens at start a and closes after start b-d. Sorting the
+   * opens and closes and sweeping them across the start times allowed by the required attendees
+   * gives, for every start, the number of optional attendees who can come. The best starts are then
+   * turned back into time ranges. For example, if requiredTimes={[8am,10am]}, d=30min and the only
+   * optional attendee is busy [8.30am,9am], then starts [8am,8am] and [9am,9.30am] both fit one
+   * optional attendee and {[8am,8.30am],[9am,10am]} is returned.
+   *
+   * @param optionalFree The normalized free intervals of each optional attendee.
+   */
+  private static IntervalList withOptionalAttendees(
+      IntervalList requiredTimes, List<IntervalList> optionalFree, MeetingRequest request) {
+    int duration = (int) request.getDuration();
+
+    StartPieces pieces = new StartPieces(requiredTimes, optionalFree, duration);
+
+    // Nobody optional can make it, so fall back to the required attendees. If there are no required
+    // attendees either, there is nobody to hold the meeting for.
+    if (pieces.best == 0) {
+      return request.getAttendees().isEmpty() ? new IntervalList() : requiredTimes;
+    }
+
+    // Join neighbouring best pieces and turn the start times back into ranges that end d minutes
+    // after the last start.
+    IntervalList bestTimes = new IntervalList();
+    boolean inRange = false;
+    int rangeStart = 0;
+    int rangeEnd = 0;
+    for (int piece = 0; piece < pieces.starts.size(); piece++) {
+      if (pieces.counts[piece] != pieces.best) {
+        continue;
+      }
+      if (inRange && pieces.starts.start(piece) == rangeEnd) {
+        rangeEnd = pieces.starts.end(piece);
+        continue;
+      }
+      if (inRange) {
+        bestTimes.add(rangeStart, rangeEnd - 1 + duration);
+      }
+      inRange = true;
+      rangeStart = pieces.starts.start(piece);
+      rangeEnd = pieces.starts.end(piece);
+    }
+    bestTimes.add(rangeStart, rangeEnd - 1 + duration);
+
+    return bestTimes;
+  }
+
+  /**
+   * The meeting start times allowed by the required attendees, split into pieces over which the
+   * number of optional attendees who can come stays the same. See
+   * {@link #withOptionalAttendees(IntervalList, List, MeetingRequest)} for how they are found.
+   */
+  private static final class StartPieces {
+    // Each piece as the half-open range of start times [first start, last start + 1).
+    final IntervalList starts = new IntervalList();
+
+    // For each piece, the number of optional attendees who can come.
+    int[] counts = new int[8];
+
+    // The largest count of any piece.
+    int best = 0;
+
+    StartPieces(IntervalList requiredTimes, List<IntervalList> optionalFree, int duration) {
+      int capacity = 0;
+      for (IntervalList free : optionalFree) {
+        capacity += free.size();
+      }
+      int[] opens = new int[capacity];
+      int[] closes = new int[capacity];
+      int size = 0;
+      for (IntervalList free : optionalFree) {
+        for (int i = 0; i < free.size(); i++) {
+          if (free.end(i) - free.start(i) >= duration) {
+            opens[size] = free.start(i);
+            closes[size] = free.end(i) - duration + 1;
+            size++;
+          }
+        }
+      }
+      Arrays.sort(opens, 0, size);
+      Arrays.sort(closes, 0, size);
+
+      // The required times are sorted and disjoint, so the opens and closes only need one pass.
+      int open = 0;
+      int close = 0;
+      int count = 0;
+      for (int range = 0; range < requiredTimes.size(); range++) {
+        int pieceStart = requiredTimes.start(range);
+        int lastStart = requiredTimes.end(range) - duration;
+        while (pieceStart <= lastStart) {
+          while (open < size && opens[open] <= pieceStart) {
+            open++;
+            count++;
+          }
+          while (close < size && closes[close] <= pieceStart) {
+            close++;
+            count--;
+          }
+
+          int nextChange = lastStart + 1;
+          if (open < size) {
+            nextChange = Math.min(nextChange, opens[open]);
+          }
+          if (close < size) {
+            nextChange = Math.min(nextChange, closes[close]);
+          }
+
+          if (starts.size() == counts.length) {
+            counts = Arrays.copyOf(counts, 2 * counts.length);
+          }
+          counts[starts.size()] = count;
+          starts.add(pieceStart, nextChange);
+          best = Math.max(best, count);
+          pieceStart = nextChange;
+        }
+      }
+    }
+  }
+
+  /**
+   * Answers the requests in [from, to), splitting the range in half until it is small enough to be
+   * worth answering on one thread.
+   */
+  private final class BatchQuery extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final EventIndex index;
+    private final List<MeetingRequest> requests;
+    private final List<Collection<TimeRange>> answers;
+    private final int from;
+    private final int to;
+
+    BatchQuery(EventIndex index, List<MeetingRequest> requests,
+        List<Collection<TimeRange>> answers, int from, int to) {
+      this.index = index;
+      this.requests = requests;
+      this.answers = answers;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= BATCH_THRESHOLD) {
+        for (int i = from; i < to; i++) {
+          answers.set(i, query(index, requests.get(i)));
+        }
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new BatchQuery(index, requests, answers, from, middle),
+          new BatchQuery(index, requests, answers, middle, to));
+    }
+  }
+
+  /**
+   * Works out the free times of a range of required attendees by splitting it in half until the
+   * halves are small, finding the free times of each half on its own and intersecting them. The
+   * intersection is associative, so the halves can be combined in any grouping, and dropping gaps
+   * that are too short before combining them is safe because intersecting only shrinks gaps. Once
+   * any chunk finds no free time at all, the others stop early.
+   */
+  private static final class FreeTimesTask extends RecursiveTask<IntervalList> {
+    private static final long serialVersionUID = 1L;
+
+    private final EventIndex index;
+    private final String[] attendees;
+    private final int from;
+    private final int to;
+    private final TimeRange window;
+    private final long duration;
+    private final AtomicBoolean noneFree;
+
+    FreeTimesTask(EventIndex index, String[] attendees, int from, int to, TimeRange window,
+        long duration, AtomicBoolean noneFree) {
+      this.index = index;
+      this.attendees = attendees;
+      this.from = from;
+      this.to = to;
+      this.window = window;
+      this.duration = duration;
+      this.noneFree = noneFree;
+    }
+
+    @Override
+    protected IntervalList compute() {
+      if (to - from > ATTENDEE_THRESHOLD) {
+        int middle = (from + to) >>> 1;
+        FreeTimesTask left =
+            new FreeTimesTask(index, attendees, from, middle, window, duration, noneFree);
+        left.fork();
+        IntervalList freeTimes =
+            new FreeTimesTask(index, attendees, middle, to, window, duration, noneFree).compute();
+        return freeTimes.intersect(left.join()).removeShorterThan(duration);
+      }
+
+      IntervalList freeTimes = new IntervalList(1).add(window.start(), window.end());
+      for (int i = from; i < to && !noneFree.get(); i++) {
+        freeTimes.subtract(index.getBusyIntervals(attendees[i])).removeShorterThan(duration);
+        if (freeTimes.isEmpty()) {
+          noneFree.set(true);
+        }
+      }
+      return noneFree.get() ? freeTimes.clear() : freeTimes;
+    }
   }
 }
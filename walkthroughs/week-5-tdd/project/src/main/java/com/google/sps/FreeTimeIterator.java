@@ -0,0 +1,149 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Finds the free times of a group of attendees one at a time, in order of their start times. The
+ * sorted busy intervals of the attendees are merged with a heap holding the next interval of each
+ * attendee, so finding the next free time only reads the intervals that start before it. A caller
+ * that only wants the first free time pays O(k) for k attendees to build the heap, plus O(log k)
+ * for each busy interval before that time, however long the window is. Each free gap is cut to
+ * the alignment and step of the request before it is returned, like the other queries.
+ */
+final class FreeTimeIterator implements Iterator<TimeRange> {
+  private final IntervalList[] busy;
+  private final int windowEnd;
+  private final long duration;
+  private final MeetingRequest request;
+
+  // For each attendee, the index of their next busy interval that has not been merged yet.
+  private final int[] positions;
+
+  // A min-heap of the attendees with intervals left, ordered by the start of their next interval.
+  private final int[] heap;
+  private int heapSize;
+
+  // Every time before this is either busy or has been returned already.
+  private int cursor;
+
+  // The free time to return next, found ahead of time by hasNext.
+  private TimeRange next;
+
+  // The last free gap cut to the alignment and step of the request, and how much of it was
+  // returned already.
+  private IntervalList pending = new IntervalList();
+  private int pendingIndex;
+
+  /**
+   * Creates a new iterator over the free times in {@code window} that fit the meeting, starting on
+   * the alignment and step of {@code request}.
+   *
+   * @param busy The normalized busy intervals of each attendee.
+   */
+  FreeTimeIterator(List<IntervalList> busy, TimeRange window, MeetingRequest request) {
+    this.busy = busy.toArray(new IntervalList[0]);
+    this.windowEnd = window.end();
+    this.duration = request.getDuration();
+    this.request = request;
+    this.positions = new int[this.busy.length];
+    this.heap = new int[this.busy.length];
+    this.cursor = window.start();
+
+    for (int attendee = 0; attendee < this.busy.length; attendee++) {
+      positions[attendee] = this.busy[attendee].firstEndingAfter(cursor) / 2;
+      if (hasInterval(attendee)) {
+        heap[heapSize++] = attendee;
+      }
+    }
+    for (int i = heapSize / 2 - 1; i >= 0; i--) {
+      siftDown(i);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (next == null && pendingIndex < pending.size()) {
+      next = TimeRange.fromStartEnd(pending.start(pendingIndex), pending.end(pendingIndex), false);
+      pendingIndex++;
+    }
+    while (next == null && cursor < windowEnd) {
+      // Merge every interval that starts before the cursor, pushing the cursor past its end.
+      while (heapSize > 0 && nextStart(heap[0]) <= cursor) {
+        int attendee = heap[0];
+        cursor = Math.max(cursor, busy[attendee].end(positions[attendee]));
+        positions[attendee]++;
+        if (!hasInterval(attendee)) {
+          heap[0] = heap[--heapSize];
+        }
+        if (heapSize > 0) {
+          siftDown(0);
+        }
+      }
+
+      // The cursor is free until the next interval of anyone starts.
+      int freeEnd = heapSize > 0 ? Math.min(nextStart(heap[0]), windowEnd) : windowEnd;
+      if (freeEnd > cursor && freeEnd - cursor >= duration) {
+        IntervalList gap = new IntervalList(1).add(cursor, freeEnd);
+        pending = FindMeetingQuery.withGranularity(gap, request);
+        pendingIndex = 0;
+        if (pending.size() > 0) {
+          next = TimeRange.fromStartEnd(pending.start(0), pending.end(0), false);
+          pendingIndex++;
+        }
+      }
+      cursor = freeEnd;
+    }
+    return next != null;
+  }
+
+  @Override
+  public TimeRange next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    TimeRange free = next;
+    next = null;
+    return free;
+  }
+
+  /** Returns whether the attendee has an interval left that starts inside the window. */
+  private boolean hasInterval(int attendee) {
+    return positions[attendee] < busy[attendee].size() && nextStart(attendee) < windowEnd;
+  }
+
+  private int nextStart(int attendee) {
+    return busy[attendee].start(positions[attendee]);
+  }
+
+  private void siftDown(int i) {
+    int attendee = heap[i];
+    int start = nextStart(attendee);
+    while (2 * i + 1 < heapSize) {
+      int child = 2 * i + 1;
+      if (child + 1 < heapSize && nextStart(heap[child + 1]) < nextStart(heap[child])) {
+        child++;
+      }
+      if (nextStart(heap[child]) >= start) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = attendee;
+  }
+}
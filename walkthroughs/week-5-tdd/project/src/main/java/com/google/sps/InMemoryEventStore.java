@@ -0,0 +1,159 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An {@link EventStore} that keeps every event in memory. The events are held in an immutable
+ * {@link CalendarSnapshot} published through an atomic reference: readers just read the reference
+ * and never block, while writers copy the current snapshot, add to the copy and swap it in with a
+ * compare-and-set, trying again if another writer got there first.
+ *
+ * Every change copies all of the events and drops the index built for the old snapshot, so
+ * {@link #add}, {@link #remove} and {@link #replace} cost O(n) each and are meant for small stores
+ * or occasional edits. Large imports should go through {@link #beginImport}, as
+ * {@link EventLoader} does: its batches are appended to a single pending list that becomes the
+ * next snapshot when the import is committed.
+ */
+public final class InMemoryEventStore implements EventStore {
+  private final AtomicReference<CalendarSnapshot> snapshot =
+      new AtomicReference<>(CalendarSnapshot.EMPTY);
+
+  /**
+   * Creates a new empty store.
+   */
+  public InMemoryEventStore() {}
+
+  /**
+   * Creates a new store holding the given events.
+   */
+  public InMemoryEventStore(Event... events) {
+    addAll(Arrays.asList(events));
+  }
+
+  @Override
+  public CalendarSnapshot getSnapshot() {
+    return snapshot.get();
+  }
+
+  @Override
+  public Collection<Event> getEvents() {
+    return snapshot.get().getEvents();
+  }
+
+  @Override
+  public int size() {
+    return snapshot.get().size();
+  }
+
+  @Override
+  public long getVersion() {
+    return snapshot.get().getVersion();
+  }
+
+  @Override
+  public void add(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    addAll(Collections.singletonList(event));
+  }
+
+  @Override
+  public void addAll(Collection<Event> events) {
+    while (true) {
+      CalendarSnapshot current = snapshot.get();
+      if (snapshot.compareAndSet(current, current.withEvents(events))) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public boolean remove(Event event) {
+    while (true) {
+      CalendarSnapshot current = snapshot.get();
+      CalendarSnapshot next = current.withoutEvent(event);
+      if (next == current) {
+        return false;
+      }
+      if (snapshot.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public boolean replace(Event old, Event updated) {
+    while (true) {
+      CalendarSnapshot current = snapshot.get();
+      CalendarSnapshot next = current.withEventReplaced(old, updated);
+      if (next == current) {
+        return false;
+      }
+      if (snapshot.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public Import beginImport() {
+    return new PendingImport();
+  }
+
+  /**
+   * The events of the current snapshot followed by the imported ones, in one list that is only
+   * copied again if another change is published before the import is committed.
+   */
+  private final class PendingImport implements Import {
+    private final CalendarSnapshot base = snapshot.get();
+    private final List<Event> events = new ArrayList<>(base.getEvents());
+    private boolean committed;
+
+    @Override
+    public void addAll(Collection<Event> added) {
+      if (committed) {
+        throw new IllegalStateException("the import has been committed already");
+      }
+      for (Event event : added) {
+        if (event == null) {
+          throw new IllegalArgumentException("events cannot contain null");
+        }
+      }
+      events.addAll(added);
+    }
+
+    @Override
+    public void commit() {
+      if (committed) {
+        throw new IllegalStateException("the import has been committed already");
+      }
+      committed = true;
+
+      if (snapshot.compareAndSet(base, base.next(events))) {
+        return;
+      }
+      // Another change got in first, so add the imported events to that one instead.
+      InMemoryEventStore.this.addAll(events.subList(base.size(), events.size()));
+    }
+  }
+}
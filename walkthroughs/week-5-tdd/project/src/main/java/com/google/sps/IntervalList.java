@@ -0,0 +1,470 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * IntervalList is a list of time intervals packed into a primitive array as
+ * [start0, end0, start1, end1, ...], with each end being the exclusive bound. It is used instead of
+ * lists of {@code TimeRange} objects so that the scheduler can work on many intervals without
+ * allocating an object for each one.
+ *
+ * Most operations expect the list to be normalized, meaning the intervals are sorted by start, are
+ * not empty and neither overlap nor touch each other. Intervals added with {@link #add} may be in
+ * any order; call {@link #normalize} afterwards. The set operations change this list in place and
+ * reuse its arrays, so a list that is used over and over stops allocating once it has grown.
+ */
+public final class IntervalList {
+  private static final int[] EMPTY = new int[0];
+
+  private int[] bounds;
+  private int size;
+
+  // A second array that the set operations write their result into before swapping it with bounds.
+  private int[] scratch = EMPTY;
+
+  /**
+   * Creates a new empty list.
+   */
+  public IntervalList() {
+    this.bounds = EMPTY;
+  }
+
+  /**
+   * Creates a new empty list with room for {@code intervals} intervals.
+   */
+  public IntervalList(int intervals) {
+    this.bounds = new int[2 * intervals];
+  }
+
+  /**
+   * Creates a new normalized list holding the given ranges.
+   */
+  public static IntervalList of(TimeRange... ranges) {
+    return of(Arrays.asList(ranges));
+  }
+
+  /**
+   * Creates a new normalized list holding the given ranges.
+   */
+  public static IntervalList of(Collection<TimeRange> ranges) {
+    IntervalList list = new IntervalList(ranges.size());
+    for (TimeRange range : ranges) {
+      list.add(range.start(), range.end());
+    }
+    list.normalize();
+    return list;
+  }
+
+  /**
+   * Returns the number of intervals in this list.
+   */
+  public int size() {
+    return size / 2;
+  }
+
+  /**
+   * Returns whether this list has no intervals.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the start of the interval at {@code index}.
+   */
+  public int start(int index) {
+    return bounds[2 * index];
+  }
+
+  /**
+   * Returns the end of the interval at {@code index}. This is the closing exclusive bound.
+   */
+  public int end(int index) {
+    return bounds[2 * index + 1];
+  }
+
+  /**
+   * Returns the total number of minutes covered by this normalized list.
+   */
+  public long duration() {
+    long duration = 0;
+    for (int i = 0; i < size; i += 2) {
+      duration += bounds[i + 1] - bounds[i];
+    }
+    return duration;
+  }
+
+  /**
+   * Appends the interval [start, end) to the end of this list. Empty intervals are ignored.
+   */
+  public IntervalList add(int start, int end) {
+    if (end <= start) {
+      return this;
+    }
+    if (size + 2 > bounds.length) {
+      bounds = Arrays.copyOf(bounds, Math.max(8, 2 * bounds.length));
+    }
+    bounds[size++] = start;
+    bounds[size++] = end;
+    return this;
+  }
+
+  /**
+   * Removes every interval from this list, keeping its arrays for reuse.
+   */
+  public IntervalList clear() {
+    size = 0;
+    return this;
+  }
+
+  /**
+   * Sorts the intervals by start and merges the ones that overlap or touch, so that this list is
+   * normalized.
+   */
+  public IntervalList normalize() {
+    if (!isSorted()) {
+      // Pack each interval into one long with the start in the high bits and sort the primitives.
+      long[] packed = new long[size / 2];
+      for (int i = 0; i < size; i += 2) {
+        packed[i / 2] = ((long) bounds[i] << 32) | (bounds[i + 1] & 0xFFFFFFFFL);
+      }
+      Arrays.sort(packed);
+      for (int i = 0; i < packed.length; i++) {
+        bounds[2 * i] = (int) (packed[i] >> 32);
+        bounds[2 * i + 1] = (int) packed[i];
+      }
+    }
+
+    int merged = 0;
+    for (int i = 0; i < size; i += 2) {
+      if (merged > 0 && bounds[i] <= bounds[merged - 1]) {
+        bounds[merged - 1] = Math.max(bounds[merged - 1], bounds[i + 1]);
+      } else {
+        bounds[merged++] = bounds[i];
+        bounds[merged++] = bounds[i + 1];
+      }
+    }
+    size = merged;
+    return this;
+  }
+
+  /**
+   * Adds every interval of the normalized list {@code other} to this normalized list.
+   */
+  public IntervalList merge(IntervalList other) {
+    int[] out = scratch(size + other.size);
+    int length = 0;
+    int i = 0;
+    int j = 0;
+    while (i < size || j < other.size) {
+      // Take whichever interval starts first, then join it onto the last one if they touch.
+      int start;
+      int end;
+      if (j >= other.size || (i < size && bounds[i] <= other.bounds[j])) {
+        start = bounds[i];
+        end = bounds[i + 1];
+        i += 2;
+      } else {
+        start = other.bounds[j];
+        end = other.bounds[j + 1];
+        j += 2;
+      }
+
+      if (length > 0 && start <= out[length - 1]) {
+        out[length - 1] = Math.max(out[length - 1], end);
+      } else {
+        out[length++] = start;
+        out[length++] = end;
+      }
+    }
+    return swap(out, length);
+  }
+
+  /**
+   * Removes every part of this normalized list that is covered by the normalized list
+   * {@code other}. Only the intervals of {@code other} that can overlap this list are read.
+   */
+  public IntervalList subtract(IntervalList other) {
+    if (size == 0 || other.size == 0) {
+      return this;
+    }
+
+    // Subtracting can split an interval in two, but only once for each interval of other.
+    int j = other.firstEndingAfter(bounds[0]);
+    int[] out = scratch(size + other.size - j);
+    int length = 0;
+    for (int i = 0; i < size; i += 2) {
+      int start = bounds[i];
+      int end = bounds[i + 1];
+
+      // Skip the intervals of other that end before this one starts.
+      while (j < other.size && other.bounds[j + 1] <= start) {
+        j += 2;
+      }
+      // Cut out every interval of other that starts before this one ends.
+      int k = j;
+      while (k < other.size && other.bounds[k] < end) {
+        if (other.bounds[k] > start) {
+          out[length++] = start;
+          out[length++] = other.bounds[k];
+        }
+        start = Math.max(start, other.bounds[k + 1]);
+        k += 2;
+      }
+      if (end > start) {
+        out[length++] = start;
+        out[length++] = end;
+      }
+    }
+    return swap(out, length);
+  }
+
+  /**
+   * Keeps only the parts of this normalized list that are also covered by the normalized list
+   * {@code other}.
+   */
+  public IntervalList intersect(IntervalList other) {
+    if (size == 0 || other.size == 0) {
+      return clear();
+    }
+
+    int[] out = scratch(size + other.size);
+    int length = 0;
+    int i = 0;
+    int j = other.firstEndingAfter(bounds[0]);
+    while (i < size && j < other.size) {
+      int start = Math.max(bounds[i], other.bounds[j]);
+      int end = Math.min(bounds[i + 1], other.bounds[j + 1]);
+      if (end > start) {
+        out[length++] = start;
+        out[length++] = end;
+      }
+
+      // Move past whichever interval ends first, since it cannot overlap anything later.
+      if (bounds[i + 1] < other.bounds[j + 1]) {
+        i += 2;
+      } else {
+        j += 2;
+      }
+    }
+    return swap(out, length);
+  }
+
+  /**
+   * Keeps only the parts of this normalized list inside [from, to).
+   */
+  public IntervalList clip(int from, int to) {
+    int first = firstEndingAfter(from);
+    int length = 0;
+    for (int i = first; i < size && bounds[i] < to; i += 2) {
+      bounds[length++] = Math.max(bounds[i], from);
+      bounds[length++] = Math.min(bounds[i + 1], to);
+    }
+    size = length;
+    return this;
+  }
+
+  /**
+   * Removes the intervals that are shorter than {@code duration} minutes.
+   */
+  public IntervalList removeShorterThan(long duration) {
+    int length = 0;
+    for (int i = 0; i < size; i += 2) {
+      if (bounds[i + 1] - bounds[i] >= duration) {
+        bounds[length++] = bounds[i];
+        bounds[length++] = bounds[i + 1];
+      }
+    }
+    size = length;
+    return this;
+  }
+
+  /**
+   * Returns a new normalized list with the parts of [from, to) that this normalized list does not
+   * cover.
+   */
+  public IntervalList complement(int from, int to) {
+    IntervalList free = new IntervalList(size() + 1);
+    if (from < to) {
+      free.add(from, to);
+    }
+    return free.subtract(this);
+  }
+
+  /**
+   * Returns a new normalized list that is this normalized list with its part inside [from, to)
+   * replaced by {@code region}, a normalized list inside [from, to). Only the intervals that reach
+   * [from, to) are looked at, and the ones before and after it are copied over as they are.
+   */
+  IntervalList splice(int from, int to, IntervalList region) {
+    // The intervals from first up to last reach [from, to), or touch it and may need joining.
+    int first = firstEndingAfter(from - 1);
+    int last = first;
+    while (last < size && bounds[last] <= to) {
+      last += 2;
+    }
+
+    IntervalList spliced = new IntervalList(size() + region.size() + 2);
+    System.arraycopy(bounds, 0, spliced.bounds, 0, first);
+    spliced.size = first;
+    if (first < last) {
+      spliced.join(bounds[first], Math.min(bounds[first + 1], from));
+    }
+    for (int i = 0; i < region.size; i += 2) {
+      spliced.join(region.bounds[i], region.bounds[i + 1]);
+    }
+    if (first < last) {
+      spliced.join(Math.max(bounds[last - 2], to), bounds[last - 1]);
+    }
+    System.arraycopy(bounds, last, spliced.bounds, spliced.size, size - last);
+    spliced.size += size - last;
+    return spliced;
+  }
+
+  /**
+   * Returns a copy of this list.
+   */
+  public IntervalList copy() {
+    IntervalList copy = new IntervalList();
+    copy.bounds = Arrays.copyOf(bounds, size);
+    copy.size = size;
+    return copy;
+  }
+
+  /**
+   * Returns a read-only view of this list as time ranges. The view creates a {@code TimeRange} for
+   * an interval each time it is read, and reflects later changes to this list.
+   */
+  public List<TimeRange> asTimeRanges() {
+    return new TimeRanges(this);
+  }
+
+  /**
+   * Returns the position in {@code bounds} of the first interval that ends after {@code time}, or
+   * the size of the list if there is none. The list must be normalized, so the ends are sorted too.
+   */
+  int firstEndingAfter(int time) {
+    int lo = 0;
+    int hi = size / 2;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (bounds[2 * mid + 1] > time) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return 2 * lo;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof IntervalList)) {
+      return false;
+    }
+
+    IntervalList list = (IntervalList) other;
+    if (size != list.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (bounds[i] != list.bounds[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 1;
+    for (int i = 0; i < size; i++) {
+      hash = 31 * hash + bounds[i];
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return asTimeRanges().toString();
+  }
+
+  private boolean isSorted() {
+    for (int i = 2; i < size; i += 2) {
+      if (bounds[i] < bounds[i - 2]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Appends [start, end), joining it onto the last interval if they overlap or touch. */
+  private void join(int start, int end) {
+    if (end <= start) {
+      return;
+    }
+    if (size > 0 && start <= bounds[size - 1]) {
+      bounds[size - 1] = Math.max(bounds[size - 1], end);
+    } else {
+      add(start, end);
+    }
+  }
+
+  /** Returns the scratch array, grown to hold at least {@code capacity} ints. */
+  private int[] scratch(int capacity) {
+    if (scratch.length < capacity) {
+      scratch = new int[Math.max(capacity, 2 * scratch.length)];
+    }
+    return scratch;
+  }
+
+  /** Makes {@code out} the contents of this list and keeps the old array as the scratch array. */
+  private IntervalList swap(int[] out, int length) {
+    scratch = bounds;
+    bounds = out;
+    size = length;
+    return this;
+  }
+
+  /**
+   * The view returned by {@link #asTimeRanges}. It is a named class because Gson writes anonymous
+   * classes as null, and the servlets send these lists straight to Gson.
+   */
+  private static final class TimeRanges extends AbstractList<TimeRange> {
+    private final IntervalList intervals;
+
+    TimeRanges(IntervalList intervals) {
+      this.intervals = intervals;
+    }
+
+    @Override
+    public TimeRange get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return TimeRange.fromStartEnd(intervals.start(index), intervals.end(index), false);
+    }
+
+    @Override
+    public int size() {
+      return intervals.size();
+    }
+  }
+}
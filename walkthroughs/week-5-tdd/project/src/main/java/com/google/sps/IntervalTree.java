@@ -0,0 +1,117 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A static interval tree over a list of time ranges. It answers "which ranges overlap this window"
+ * in O(log n + k) time, where k is the number of ranges reported, even when the ranges overlap each
+ * other or some of them are very long. Trees are considered read-only.
+ *
+ * The ranges are kept in arrays sorted by start, and the tree is implicit: the node for the
+ * positions [lo, hi) is the middle position, its children are the nodes for [lo, mid) and
+ * [mid + 1, hi), and {@code maxEnd[mid]} is the latest end of any range in [lo, hi).
+ */
+public final class IntervalTree {
+  private final int[] starts;
+  private final int[] ends;
+  private final int[] maxEnds;
+
+  // For each sorted position, the position of that range in the list the tree was built from.
+  private final int[] ids;
+
+  /**
+   * Creates a new tree over the given ranges.
+   *
+   * @param ranges The ranges to index. Must be non-null. Visitors are given positions in this list.
+   */
+  public IntervalTree(List<TimeRange> ranges) {
+    if (ranges == null) {
+      throw new IllegalArgumentException("ranges cannot be null. Use empty list instead.");
+    }
+
+    // Sort the positions by start time by packing the start in the high bits of a long.
+    long[] order = new long[ranges.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = ((long) ranges.get(i).start() << 32) | i;
+    }
+    Arrays.sort(order);
+
+    starts = new int[order.length];
+    ends = new int[order.length];
+    maxEnds = new int[order.length];
+    ids = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      int id = (int) order[i];
+      starts[i] = ranges.get(id).start();
+      ends[i] = ranges.get(id).end();
+      ids[i] = id;
+    }
+    computeMaxEnds(0, order.length);
+  }
+
+  /**
+   * Returns the number of ranges in this tree.
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * Calls {@code visitor} with the position of every range that overlaps {@code window}, in order
+   * of their start times. Ranges that only touch the window at one of its ends do not overlap it.
+   */
+  public void forEachOverlapping(TimeRange window, IntConsumer visitor) {
+    forEachOverlapping(0, starts.length, window.start(), window.end(), visitor);
+  }
+
+  private void forEachOverlapping(int lo, int hi, int from, int to, IntConsumer visitor) {
+    if (lo >= hi) {
+      return;
+    }
+
+    int mid = (lo + hi) >>> 1;
+    // Nothing in this subtree ends after the window starts.
+    if (maxEnds[mid] <= from) {
+      return;
+    }
+
+    forEachOverlapping(lo, mid, from, to, visitor);
+
+    // Everything from the middle onwards starts at or after the end of the window.
+    if (starts[mid] >= to) {
+      return;
+    }
+
+    if (ends[mid] > from) {
+      visitor.accept(ids[mid]);
+    }
+    forEachOverlapping(mid + 1, hi, from, to, visitor);
+  }
+
+  private int computeMaxEnds(int lo, int hi) {
+    if (lo >= hi) {
+      return Integer.MIN_VALUE;
+    }
+
+    int mid = (lo + hi) >>> 1;
+    int maxEnd = Math.max(ends[mid], Math.max(computeMaxEnds(lo, mid), computeMaxEnds(mid + 1, hi)));
+    maxEnds[mid] = maxEnd;
+    return maxEnd;
+  }
+}
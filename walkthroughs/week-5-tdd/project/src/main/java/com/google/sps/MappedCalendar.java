@@ -0,0 +1,417 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MappedCalendar is a read-only calendar stored in a compact binary file that is memory-mapped
+ * instead of parsed, so a new instance can answer queries as soon as the file is opened. Nothing is
+ * decoded up front: the busy intervals of an attendee are read straight from the mapped file when a
+ * query asks about them, and events are only decoded if they are listed.
+ *
+ * The file is a header followed by int sections and then two UTF-8 string blobs, all big-endian:
+ *
+ * <pre>
+ * header                 magic, format, events, attendees, eventAttendees, intervals,
+ *                        titleBytes, nameBytes
+ * starts[events]         the start of every event
+ * ends[events]           the end of every event
+ * eventOffsets[events+1] where the attendee ids of each event begin in eventAttendees
+ * eventAttendees[]       the attendee ids of every event
+ * busyOffsets[attendees+1] where the busy intervals of each attendee begin in intervals
+ * intervals[2*intervals] the merged busy intervals of every attendee as start, end pairs
+ * titleOffsets[events+1] where the title of each event begins in the title blob
+ * nameOffsets[attendees+1] where the name of each attendee begins in the name blob
+ * title blob, name blob
+ * </pre>
+ *
+ * Attendee ids are positions in the name table, which is sorted by the UTF-8 bytes of the names so
+ * an attendee can be found with a binary search over the mapped file.
+ */
+public final class MappedCalendar {
+  private static final int MAGIC = 0x43414C53; // "CALS"
+  private static final int FORMAT = 1;
+  private static final int HEADER_INTS = 8;
+
+  private final ByteBuffer buffer;
+  private final int eventCount;
+  private final int attendeeCount;
+
+  // The byte offset of each section in the buffer.
+  private final int starts;
+  private final int ends;
+  private final int eventOffsets;
+  private final int eventAttendees;
+  private final int busyOffsets;
+  private final int intervals;
+  private final int titleOffsets;
+  private final int nameOffsets;
+  private final int titles;
+  private final int names;
+
+  private MappedCalendar(ByteBuffer buffer) throws IOException {
+    if (buffer.capacity() < 4 * HEADER_INTS || buffer.getInt(0) != MAGIC) {
+      throw new IOException("not a calendar snapshot");
+    }
+    if (buffer.getInt(4) != FORMAT) {
+      throw new IOException("unsupported snapshot format " + buffer.getInt(4));
+    }
+
+    this.buffer = buffer;
+    this.eventCount = buffer.getInt(8);
+    this.attendeeCount = buffer.getInt(12);
+    int eventAttendeeCount = buffer.getInt(16);
+    int intervalCount = buffer.getInt(20);
+    int titleBytes = buffer.getInt(24);
+    int nameBytes = buffer.getInt(28);
+
+    long[] sections = sectionOffsets(
+        eventCount, attendeeCount, eventAttendeeCount, intervalCount, titleBytes, nameBytes);
+    if (sections[sections.length - 1] != buffer.capacity()) {
+      throw new IOException("snapshot is " + buffer.capacity() + " bytes but its header says "
+          + sections[sections.length - 1]);
+    }
+    this.starts = (int) sections[0];
+    this.ends = (int) sections[1];
+    this.eventOffsets = (int) sections[2];
+    this.eventAttendees = (int) sections[3];
+    this.busyOffsets = (int) sections[4];
+    this.intervals = (int) sections[5];
+    this.titleOffsets = (int) sections[6];
+    this.nameOffsets = (int) sections[7];
+    this.titles = (int) sections[8];
+    this.names = (int) sections[9];
+  }
+
+  /**
+   * Memory-maps the snapshot in {@code file}. Only the header is read.
+   *
+   * @throws IOException if the file cannot be read or is not a snapshot.
+   */
+  public static MappedCalendar open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("snapshot is too large to map: " + channel.size() + " bytes");
+      }
+      // The mapping stays valid after the channel is closed.
+      return new MappedCalendar(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes a snapshot of {@code events} to {@code file}, replacing anything that is there.
+   *
+   * @throws IOException if the file cannot be written or the snapshot would not fit in 2GB.
+   */
+  public static void write(Collection<Event> events, Path file) throws IOException {
+    // Give every attendee an id in the order of their UTF-8 names.
+    Set<String> uniqueNames = new HashSet<>();
+    for (Event event : events) {
+      uniqueNames.addAll(event.getAttendees());
+    }
+    byte[][] encodedNames = new byte[uniqueNames.size()][];
+    int index = 0;
+    for (String name : uniqueNames) {
+      encodedNames[index++] = name.getBytes(StandardCharsets.UTF_8);
+    }
+    Arrays.sort(encodedNames, MappedCalendar::compareBytes);
+    Map<String, Integer> ids = new HashMap<>();
+    for (int id = 0; id < encodedNames.length; id++) {
+      ids.put(new String(encodedNames[id], StandardCharsets.UTF_8), id);
+    }
+
+    List<Event> ordered = new ArrayList<>(events);
+    IntervalList[] busy = new IntervalList[encodedNames.length];
+    byte[][] encodedTitles = new byte[ordered.size()][];
+    int eventAttendeeCount = 0;
+    for (int i = 0; i < ordered.size(); i++) {
+      Event event = ordered.get(i);
+      encodedTitles[i] = event.getTitle().getBytes(StandardCharsets.UTF_8);
+      for (String attendee : event.getAttendees()) {
+        int id = ids.get(attendee);
+        if (busy[id] == null) {
+          busy[id] = new IntervalList();
+        }
+        busy[id].add(event.getWhen().start(), event.getWhen().end());
+        eventAttendeeCount++;
+      }
+    }
+    int intervalCount = 0;
+    for (IntervalList list : busy) {
+      intervalCount += list.normalize().size();
+    }
+
+    long titleBytes = totalLength(encodedTitles);
+    long nameBytes = totalLength(encodedNames);
+    long[] sections = sectionOffsets(ordered.size(), encodedNames.length, eventAttendeeCount,
+        intervalCount, titleBytes, nameBytes);
+    if (sections[sections.length - 1] > Integer.MAX_VALUE) {
+      throw new IOException("snapshot would be too large to map");
+    }
+
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT);
+      out.writeInt(ordered.size());
+      out.writeInt(encodedNames.length);
+      out.writeInt(eventAttendeeCount);
+      out.writeInt(intervalCount);
+      out.writeInt((int) titleBytes);
+      out.writeInt((int) nameBytes);
+
+      for (Event event : ordered) {
+        out.writeInt(event.getWhen().start());
+      }
+      for (Event event : ordered) {
+        out.writeInt(event.getWhen().end());
+      }
+      int offset = 0;
+      for (Event event : ordered) {
+        out.writeInt(offset);
+        offset += event.getAttendees().size();
+      }
+      out.writeInt(offset);
+      for (Event event : ordered) {
+        int[] eventIds = new int[event.getAttendees().size()];
+        int size = 0;
+        for (String attendee : event.getAttendees()) {
+          eventIds[size++] = ids.get(attendee);
+        }
+        Arrays.sort(eventIds);
+        for (int id : eventIds) {
+          out.writeInt(id);
+        }
+      }
+
+      offset = 0;
+      for (IntervalList list : busy) {
+        out.writeInt(offset);
+        offset += list.size();
+      }
+      out.writeInt(offset);
+      for (IntervalList list : busy) {
+        for (int i = 0; i < list.size(); i++) {
+          out.writeInt(list.start(i));
+          out.writeInt(list.end(i));
+        }
+      }
+
+      writeOffsets(out, encodedTitles);
+      writeOffsets(out, encodedNames);
+      for (byte[] title : encodedTitles) {
+        out.write(title);
+      }
+      for (byte[] name : encodedNames) {
+        out.write(name);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of events in this snapshot.
+   */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the number of attendees in this snapshot.
+   */
+  public int getAttendeeCount() {
+    return attendeeCount;
+  }
+
+  /**
+   * Decodes the event at position {@code index} in the snapshot.
+   */
+  public Event getEvent(int index) {
+    if (index < 0 || index >= eventCount) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + eventCount);
+    }
+
+    TimeRange when = TimeRange.fromStartEnd(
+        buffer.getInt(starts + 4 * index), buffer.getInt(ends + 4 * index), false);
+    int first = buffer.getInt(eventOffsets + 4 * index);
+    int last = buffer.getInt(eventOffsets + 4 * index + 4);
+    List<String> attendees = new ArrayList<>(last - first);
+    for (int i = first; i < last; i++) {
+      attendees.add(getName(buffer.getInt(eventAttendees + 4 * i)));
+    }
+    return new Event(getString(titles, titleOffsets, index), when, attendees);
+  }
+
+  /**
+   * Returns a read-only list of the events in this snapshot, which are decoded as they are read.
+   */
+  public List<Event> getEvents() {
+    return new AbstractList<Event>() {
+      @Override
+      public Event get(int index) {
+        return getEvent(index);
+      }
+
+      @Override
+      public int size() {
+        return eventCount;
+      }
+    };
+  }
+
+  /**
+   * Returns the busy intervals of {@code attendee} that overlap {@code window}, read from the
+   * mapped file. Only the intervals that are returned are read, after a binary search for the first
+   * one.
+   */
+  IntervalList getBusyIntervals(String attendee, TimeRange window) {
+    IntervalList busy = new IntervalList();
+    int id = findAttendee(attendee);
+    if (id < 0) {
+      return busy;
+    }
+
+    int lo = buffer.getInt(busyOffsets + 4 * id);
+    int hi = buffer.getInt(busyOffsets + 4 * id + 4);
+    int end = hi;
+    // The intervals are merged, so their ends are sorted and the first one ending after the window
+    // starts can be found with a binary search.
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (buffer.getInt(intervals + 8 * mid + 4) > window.start()) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    for (int i = lo; i < end; i++) {
+      int start = buffer.getInt(intervals + 8 * i);
+      if (start >= window.end()) {
+        break;
+      }
+      busy.add(start, buffer.getInt(intervals + 8 * i + 4));
+    }
+    return busy;
+  }
+
+  /** Returns the id of {@code attendee}, or -1 if they are not in this snapshot. */
+  private int findAttendee(String attendee) {
+    byte[] key = attendee.getBytes(StandardCharsets.UTF_8);
+    int lo = 0;
+    int hi = attendeeCount - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int from = names + buffer.getInt(nameOffsets + 4 * mid);
+      int to = names + buffer.getInt(nameOffsets + 4 * mid + 4);
+      int comparison = compareMapped(from, to, key);
+      if (comparison < 0) {
+        lo = mid + 1;
+      } else if (comparison > 0) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private String getName(int id) {
+    return getString(names, nameOffsets, id);
+  }
+
+  /** Decodes string {@code index} of a blob, given the byte offsets of the blob and its table. */
+  private String getString(int blob, int offsets, int index) {
+    int from = buffer.getInt(offsets + 4 * index);
+    int to = buffer.getInt(offsets + 4 * index + 4);
+    byte[] bytes = new byte[to - from];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(blob + from + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Compares the mapped bytes [from, to) with {@code key} as unsigned bytes. */
+  private int compareMapped(int from, int to, byte[] key) {
+    int length = Math.min(to - from, key.length);
+    for (int i = 0; i < length; i++) {
+      int comparison = Integer.compare(buffer.get(from + i) & 0xFF, key[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(to - from, key.length);
+  }
+
+  private static int compareBytes(byte[] a, byte[] b) {
+    int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(a.length, b.length);
+  }
+
+  private static long totalLength(byte[][] strings) {
+    long length = 0;
+    for (byte[] string : strings) {
+      length += string.length;
+    }
+    return length;
+  }
+
+  private static void writeOffsets(DataOutputStream out, byte[][] strings) throws IOException {
+    int offset = 0;
+    for (byte[] string : strings) {
+      out.writeInt(offset);
+      offset += string.length;
+    }
+    out.writeInt(offset);
+  }
+
+  /**
+   * Returns the byte offset of every section, followed by the total size of the file. Longs are
+   * used so that a snapshot that is too large is noticed instead of overflowing.
+   */
+  private static long[] sectionOffsets(long events, long attendees, long eventAttendeeCount,
+      long intervalCount, long titleBytes, long nameBytes) {
+    long[] sizes = {4 * events, 4 * events, 4 * (events + 1), 4 * eventAttendeeCount,
+        4 * (attendees + 1), 8 * intervalCount, 4 * (events + 1), 4 * (attendees + 1), titleBytes,
+        nameBytes};
+    long[] offsets = new long[sizes.length + 1];
+    offsets[0] = 4 * HEADER_INTS;
+    for (int i = 0; i < sizes.length; i++) {
+      offsets[i + 1] = offsets[i] + sizes[i];
+    }
+    return offsets;
+  }
+}
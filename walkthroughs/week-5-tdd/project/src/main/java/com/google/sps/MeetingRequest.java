@@ -30,6 +30,20 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // The meeting may only start on a multiple of this many minutes after midnight. Zero means any
+  // minute, unless a step is set. Gson fills this in without calling the setter, so the getter
+  // treats values that are not positive as unset.
+  private int alignment;
+
+  // When positive, single meeting slots at least this many minutes apart are suggested instead of
+  // whole free gaps. Read through the getter for the same reason as alignment.
+  private int step;
+
+  // Used by Gson, so that the attendee sets are still created when the JSON leaves them out.
+  private MeetingRequest() {
+    this.duration = 0;
+  }
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -64,4 +78,53 @@ public final class MeetingRequest {
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * Returns the number of minutes that the start of the meeting must be a multiple of, or zero if
+   * it was not set. See {@link #getStartAlignment}.
+   */
+  public int getAlignment() {
+    return Math.max(alignment, 0);
+  }
+
+  /**
+   * Makes the meeting start on a multiple of {@code alignment} minutes after midnight, such as 5,
+   * 15 or 30. Free gaps are then trimmed to start on such a minute. Zero clears the alignment.
+   */
+  public void setAlignment(int alignment) {
+    if (alignment < 0) {
+      throw new IllegalArgumentException("alignment cannot be negative");
+    }
+    this.alignment = alignment;
+  }
+
+  /**
+   * Returns the smallest number of minutes between two suggested starts, or zero if it was not set.
+   */
+  public int getStep() {
+    return Math.max(step, 0);
+  }
+
+  /**
+   * Asks for single meeting slots, with starts at least {@code step} minutes apart inside each free
+   * gap, instead of whole free gaps. Without an alignment, the starts are also aligned to
+   * {@code step}. Zero clears the step.
+   */
+  public void setStep(int step) {
+    if (step < 0) {
+      throw new IllegalArgumentException("step cannot be negative");
+    }
+    this.step = step;
+  }
+
+  /**
+   * Returns the number of minutes that the start of the meeting must actually be a multiple of:
+   * the alignment if it is set, otherwise the step, otherwise 1.
+   */
+  public int getStartAlignment() {
+    if (getAlignment() > 0) {
+      return getAlignment();
+    }
+    return getStep() > 0 ? getStep() : 1;
+  }
 }
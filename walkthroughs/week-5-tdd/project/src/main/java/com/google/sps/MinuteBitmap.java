@@ -0,0 +1,165 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Helpers for treating a {@code long[]} as a bitmap with one bit per minute of the day. Bit
+ * {@code m} is set when minute {@code m} is busy. A whole day is {@link #MINUTES} bits, which fits
+ * in {@link #WORDS} words.
+ */
+final class MinuteBitmap {
+  public static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+  public static final int WORDS = (MINUTES + Long.SIZE - 1) / Long.SIZE;
+
+  private static final long ALL_ONES = -1L;
+
+  private MinuteBitmap() {
+    // Disallow instances.
+  }
+
+  /**
+   * Creates a new bitmap for the day with the minutes of the packed [start, end] intervals set.
+   * Intervals are clipped to the day.
+   */
+  public static long[] fromIntervals(int[] intervals) {
+    long[] bits = new long[WORDS];
+    for (int i = 0; i < intervals.length; i += 2) {
+      setRange(bits, intervals[i], intervals[i + 1]);
+    }
+    return bits;
+  }
+
+  /**
+   * Creates a new bitmap for the day with the minutes of the given intervals set. Intervals are
+   * clipped to the day.
+   */
+  public static long[] fromIntervals(IntervalList intervals) {
+    long[] bits = new long[WORDS];
+    for (int i = 0; i < intervals.size(); i++) {
+      setRange(bits, intervals.start(i), intervals.end(i));
+    }
+    return bits;
+  }
+
+  /**
+   * Sets every minute in [from, to) after clipping it to the day.
+   */
+  public static void setRange(long[] bits, int from, int to) {
+    from = Math.max(from, 0);
+    to = Math.min(to, MINUTES);
+    if (from >= to) {
+      return;
+    }
+
+    int firstWord = from >>> 6;
+    int lastWord = (to - 1) >>> 6;
+    // Shifts of a long only use the low six bits, so these are the masks for the partial words.
+    long firstMask = ALL_ONES << from;
+    long lastMask = ALL_ONES >>> -to;
+
+    if (firstWord == lastWord) {
+      bits[firstWord] |= firstMask & lastMask;
+      return;
+    }
+
+    bits[firstWord] |= firstMask;
+    for (int word = firstWord + 1; word < lastWord; word++) {
+      bits[word] = ALL_ONES;
+    }
+    bits[lastWord] |= lastMask;
+  }
+
+  /**
+   * Creates a new bitmap for the day with every multiple of {@code n} minutes set.
+   */
+  public static long[] multiplesOf(int n) {
+    long[] bits = new long[WORDS];
+    for (int minute = 0; minute < MINUTES; minute += n) {
+      bits[minute >>> 6] |= 1L << minute;
+    }
+    return bits;
+  }
+
+  /**
+   * Returns a new bitmap with minute {@code m} set when the minutes [m, m + length) are all set in
+   * {@code bits}. Once every set bit marks the start of a run of k set minutes, AND-ing the bitmap
+   * with itself shifted down by up to k minutes makes that up to 2k, so only O(log length) passes
+   * over the words are needed.
+   */
+  public static long[] runStarts(long[] bits, int length) {
+    long[] starts = bits.clone();
+    int covered = 1;
+    while (covered < length) {
+      int shift = Math.min(covered, length - covered);
+      andShiftedDown(starts, shift);
+      covered += shift;
+    }
+    return starts;
+  }
+
+  /**
+   * Clears each minute {@code m} of {@code bits} unless minute {@code m + shift} is set too. Each
+   * word only reads itself and later words, so the words can be updated in place in order.
+   */
+  private static void andShiftedDown(long[] bits, int shift) {
+    int words = shift >>> 6;
+    int offset = shift & 63;
+    for (int word = 0; word < WORDS; word++) {
+      int source = word + words;
+      long low = source < WORDS ? bits[source] >>> offset : 0;
+      long high = offset != 0 && source + 1 < WORDS ? bits[source + 1] << (64 - offset) : 0;
+      bits[word] &= low | high;
+    }
+  }
+
+  /**
+   * Returns the first busy minute at or after {@code from}, or {@link #MINUTES} if there is none.
+   */
+  public static int nextBusy(long[] bits, int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+
+    int word = from >>> 6;
+    long current = bits[word] & (ALL_ONES << from);
+    while (current == 0) {
+      if (++word == WORDS) {
+        return MINUTES;
+      }
+      current = bits[word];
+    }
+    return Math.min((word << 6) + Long.numberOfTrailingZeros(current), MINUTES);
+  }
+
+  /**
+   * Returns the first free minute at or after {@code from}, or {@link #MINUTES} if there is none.
+   */
+  public static int nextFree(long[] bits, int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+
+    int word = from >>> 6;
+    long current = ~bits[word] & (ALL_ONES << from);
+    while (current == 0) {
+      if (++word == WORDS) {
+        return MINUTES;
+      }
+      current = ~bits[word];
+    }
+    // The padding bits after the last minute are always clear, so clip to the end of the day.
+    return Math.min((word << 6) + Long.numberOfTrailingZeros(current), MINUTES);
+  }
+}
@@ -0,0 +1,180 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of meeting query answers, evicting the least recently used answer when it is
+ * full. Answers are keyed on the required attendees, the optional attendees, the duration and the
+ * alignment and step of the request, so the order the attendees were sent in does not matter.
+ *
+ * Every lookup also passes the version of the calendar it is asking about. Answers are only reused
+ * for the same version, and the whole cache is dropped as soon as a newer version is seen, so an
+ * answer is never served after the events it was worked out from have changed.
+ */
+public final class QueryCache {
+  private final int capacity;
+
+  // Guarded by this cache. In access order, so the eldest entry is the least recently used one.
+  private final Map<Key, Collection<TimeRange>> answers;
+  private long version = Long.MIN_VALUE;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates a new cache.
+   *
+   * @param capacity The most answers to keep. Must be positive.
+   */
+  public QueryCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    this.capacity = capacity;
+    this.answers = new LinkedHashMap<Key, Collection<TimeRange>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Collection<TimeRange>> eldest) {
+        return size() > QueryCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached answer to {@code request} for calendar {@code version}, or calls
+   * {@code query} and caches what it returns. The query is run without holding any lock, so two
+   * threads missing on the same request at once may both run it. Returned answers are read-only.
+   */
+  public Collection<TimeRange> get(
+      long version, MeetingRequest request, Supplier<Collection<TimeRange>> query) {
+    Key key = new Key(version, request);
+    synchronized (this) {
+      advanceTo(version);
+      Collection<TimeRange> answer = answers.get(key);
+      if (answer != null) {
+        hits.incrementAndGet();
+        return answer;
+      }
+    }
+
+    misses.incrementAndGet();
+    // Copy the answer into a list of its own, so that later hits do not create any ranges.
+    Collection<TimeRange> answer =
+        Collections.unmodifiableList(new ArrayList<TimeRange>(query.get()));
+    synchronized (this) {
+      // Don't cache an answer for a calendar that has already been replaced.
+      advanceTo(version);
+      if (version == this.version) {
+        answers.put(key, answer);
+      }
+    }
+    return answer;
+  }
+
+  /**
+   * Returns the number of lookups that were answered from the cache.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of lookups that had to run the query.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of answers in the cache.
+   */
+  public synchronized int size() {
+    return answers.size();
+  }
+
+  /**
+   * Returns the most answers the cache keeps.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** Drops every answer if {@code version} is newer than the calendar they were cached for. */
+  private void advanceTo(long version) {
+    if (version > this.version) {
+      answers.clear();
+      this.version = version;
+    }
+  }
+
+  /** A normalized meeting request together with the calendar version it was asked about. */
+  private static final class Key {
+    private final long version;
+    private final String[] attendees;
+    private final String[] optionalAttendees;
+    private final long duration;
+    private final int alignment;
+    private final int step;
+    private final int hash;
+
+    Key(long version, MeetingRequest request) {
+      this.version = version;
+      this.attendees = sorted(request.getAttendees());
+      this.optionalAttendees = sorted(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.alignment = request.getAlignment();
+      this.step = request.getStep();
+
+      int hash = Long.hashCode(version);
+      hash = 31 * hash + Arrays.hashCode(attendees);
+      hash = 31 * hash + Arrays.hashCode(optionalAttendees);
+      hash = 31 * hash + Long.hashCode(duration);
+      this.hash = 31 * (31 * hash + alignment) + step;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+
+      Key key = (Key) other;
+      return version == key.version && duration == key.duration
+          && alignment == key.alignment && step == key.step
+          && Arrays.equals(attendees, key.attendees)
+          && Arrays.equals(optionalAttendees, key.optionalAttendees);
+    }
+
+    private static String[] sorted(Collection<String> names) {
+      String[] sorted = names.toArray(new String[0]);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+}
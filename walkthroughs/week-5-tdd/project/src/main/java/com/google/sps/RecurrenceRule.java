@@ -0,0 +1,182 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * A rule for when a repeating event happens, such as every day at 9am or every other week on
+ * Mondays and Thursdays at 2pm. Times are epoch minutes, as in {@link EpochMinutes}. Rules are
+ * considered read-only; the methods that change a rule return a new one.
+ *
+ * Occurrences are never stored. The rule repeats a fixed pattern of start times every period (one
+ * or more days or weeks), so the first period that can overlap a window is found with a division
+ * and only the occurrences inside the window are ever visited.
+ */
+public final class RecurrenceRule {
+  private static final int MINUTES_PER_WEEK = 7 * EpochMinutes.MINUTES_PER_DAY;
+
+  // The start of the first period, and the start of every occurrence in a period relative to it.
+  private final int anchor;
+  private final int[] offsets;
+  private final int period;
+
+  // A day or a week in minutes, which every() multiplies to get the period.
+  private final int unit;
+
+  private final int firstStart;
+  private final int duration;
+
+  // Occurrences starting at or after this time never happen.
+  private final int until;
+
+  // The sorted start times of occurrences that have been cancelled.
+  private final int[] exceptions;
+
+  private RecurrenceRule(int anchor, int[] offsets, int unit, int period, int firstStart,
+      int duration, int until, int[] exceptions) {
+    this.anchor = anchor;
+    this.offsets = offsets;
+    this.unit = unit;
+    this.period = period;
+    this.firstStart = firstStart;
+    this.duration = duration;
+    this.until = until;
+    this.exceptions = exceptions;
+  }
+
+  /**
+   * Returns a rule for an event that happens every day, starting at epoch minute
+   * {@code firstStart} and lasting {@code duration} minutes.
+   */
+  public static RecurrenceRule daily(int firstStart, int duration) {
+    checkDuration(duration);
+    return new RecurrenceRule(firstStart, new int[] {0}, EpochMinutes.MINUTES_PER_DAY,
+        EpochMinutes.MINUTES_PER_DAY, firstStart, duration, Integer.MAX_VALUE, new int[0]);
+  }
+
+  /**
+   * Returns a rule for an event that happens every week on the given days, at the time of day of
+   * {@code firstStart}. Occurrences before {@code firstStart} are left out. With no days, the event
+   * happens on the day of the week of {@code firstStart}.
+   */
+  public static RecurrenceRule weekly(int firstStart, int duration, DayOfWeek... days) {
+    checkDuration(duration);
+    LocalDate firstDay = EpochMinutes.toDateTime(firstStart).toLocalDate();
+    int timeOfDay = firstStart - EpochMinutes.startOfDay(firstDay);
+    Set<DayOfWeek> daySet = days.length == 0
+        ? EnumSet.of(firstDay.getDayOfWeek())
+        : EnumSet.copyOf(Arrays.asList(days));
+
+    // Each period is a week starting at midnight on Monday. EnumSet iterates from Monday onwards,
+    // so the offsets come out sorted.
+    int monday =
+        EpochMinutes.startOfDay(firstDay.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+    int[] offsets = new int[daySet.size()];
+    int size = 0;
+    for (DayOfWeek day : daySet) {
+      offsets[size++] = (day.getValue() - 1) * EpochMinutes.MINUTES_PER_DAY + timeOfDay;
+    }
+    return new RecurrenceRule(monday, offsets, MINUTES_PER_WEEK, MINUTES_PER_WEEK, firstStart,
+        duration, Integer.MAX_VALUE, new int[0]);
+  }
+
+  /**
+   * Returns a copy of this rule that only happens every {@code n}th day or week.
+   */
+  public RecurrenceRule every(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("n must be positive");
+    }
+    return new RecurrenceRule(anchor, offsets, unit, Math.multiplyExact(unit, n), firstStart,
+        duration, until, exceptions);
+  }
+
+  /**
+   * Returns a copy of this rule with no occurrences starting at or after epoch minute {@code end}.
+   */
+  public RecurrenceRule until(int end) {
+    return new RecurrenceRule(
+        anchor, offsets, unit, period, firstStart, duration, end, exceptions);
+  }
+
+  /**
+   * Returns a copy of this rule without the occurrences that start at the given epoch minutes.
+   */
+  public RecurrenceRule except(int... starts) {
+    int[] exceptions = Arrays.copyOf(this.exceptions, this.exceptions.length + starts.length);
+    System.arraycopy(starts, 0, exceptions, this.exceptions.length, starts.length);
+    Arrays.sort(exceptions);
+    return new RecurrenceRule(
+        anchor, offsets, unit, period, firstStart, duration, until, exceptions);
+  }
+
+  /**
+   * Returns how long every occurrence lasts, in minutes.
+   */
+  public int getDuration() {
+    return duration;
+  }
+
+  /**
+   * Calls {@code visitor} with the start of every occurrence that overlaps {@code window}, in
+   * ascending order. Only the periods that can overlap the window are looked at.
+   */
+  public void forEachOccurrence(TimeRange window, IntConsumer visitor) {
+    // The earliest start of an occurrence that still ends inside the window.
+    long from = Math.max((long) firstStart, (long) window.start() - duration + 1);
+    long to = Math.min((long) window.end(), until);
+    if (from >= to) {
+      return;
+    }
+
+    // Every offset is less than the period, so no earlier period can have a start at or after from.
+    long periodStart = anchor + Math.max(0, Math.floorDiv(from - anchor, period)) * period;
+    for (; periodStart < to; periodStart += period) {
+      for (int offset : offsets) {
+        long start = periodStart + offset;
+        if (start >= to) {
+          return;
+        }
+        if (start >= from && Arrays.binarySearch(exceptions, (int) start) < 0) {
+          visitor.accept((int) start);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the times of the occurrences that overlap {@code window}, in ascending order.
+   */
+  public List<TimeRange> getOccurrences(TimeRange window) {
+    List<TimeRange> occurrences = new ArrayList<>();
+    forEachOccurrence(
+        window, start -> occurrences.add(TimeRange.fromStartDuration(start, duration)));
+    return occurrences;
+  }
+
+  private static void checkDuration(int duration) {
+    if (duration <= 0) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+  }
+}
@@ -0,0 +1,90 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * RecurringEvent is an event that repeats following a {@link RecurrenceRule}, such as a daily
+ * standup. It costs the same memory however many times it repeats, because its occurrences are
+ * only worked out for the window a query asks about. Recurring events are considered read-only.
+ */
+public final class RecurringEvent {
+  private final String title;
+  private final RecurrenceRule rule;
+  private final Set<String> attendees = new HashSet<>();
+  private final Set<String> readOnlyAttendees = Collections.unmodifiableSet(attendees);
+
+  /**
+   * Creates a new recurring event.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param rule When the event happens. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   */
+  public RecurringEvent(String title, RecurrenceRule rule, Collection<String> attendees) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (rule == null) {
+      throw new IllegalArgumentException("rule cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.rule = rule;
+    this.attendees.addAll(attendees);
+  }
+
+  /**
+   * Returns the human-readable name for this event.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns the rule for when this event happens.
+   */
+  public RecurrenceRule getRule() {
+    return rule;
+  }
+
+  /**
+   * Returns a read-only set of required attendees for this event.
+   */
+  public Set<String> getAttendees() {
+    return readOnlyAttendees;
+  }
+
+  /**
+   * Returns every occurrence of this event that overlaps {@code window} as a one-off event.
+   */
+  public List<Event> getOccurrences(TimeRange window) {
+    List<Event> occurrences = new ArrayList<>();
+    for (TimeRange when : rule.getOccurrences(window)) {
+      occurrences.add(new Event(title, when, attendees));
+    }
+    return occurrences;
+  }
+}
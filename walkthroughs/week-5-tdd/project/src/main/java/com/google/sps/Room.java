@@ -0,0 +1,74 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+/**
+ * A room, or any other resource that a meeting can book, together with how many people fit in it.
+ * A room is booked by listing its name among the attendees of an event, so room names must not
+ * clash with the names of people. Rooms are considered read-only.
+ */
+public final class Room {
+  private final String name;
+  private final int capacity;
+
+  /**
+   * Creates a new room.
+   *
+   * @param name The name that events use to book the room. Must be non-null.
+   * @param capacity The number of people that fit in the room. Must not be negative.
+   */
+  public Room(String name, int capacity) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative");
+    }
+
+    this.name = name;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the name that events use to book this room.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the number of people that fit in this room.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Room
+        && name.equals(((Room) other).name)
+        && capacity == ((Room) other).capacity;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Room: %s (%d)", name, capacity);
+  }
+}
@@ -0,0 +1,208 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * RoomIndex finds the rooms that are big enough and free during a window of time without looking
+ * at every room. Rooms are sorted by capacity, so the rooms that are big enough are a suffix of
+ * that order, and a segment tree over the order keeps an {@link IntervalTree} of the free intervals
+ * of the rooms below each node. Any suffix is covered by O(log n) nodes, so a lookup costs
+ * O(log^2 n + k) for k free intervals reported, and never visits rooms that are too small.
+ *
+ * Every free interval is stored once for each level of the segment tree, which is about a dozen
+ * copies for a few thousand rooms. Indexes are considered read-only; build a new one when the
+ * bookings change.
+ */
+public final class RoomIndex {
+  /** Receives the free times that a lookup finds. */
+  interface FreeRoomVisitor {
+    /** Called with a room that is free during [start, end). */
+    void visit(Room room, int start, int end);
+  }
+
+  private final TimeRange horizon;
+
+  // The rooms in ascending order of capacity.
+  private final Room[] rooms;
+
+  // The number of leaves of the segment tree, which is the number of rooms rounded up to a power
+  // of two. Node 1 is the root, the children of node i are nodes 2i and 2i + 1, and the room at
+  // position p is leaf leaves + p.
+  private final int leaves;
+  private final Node[] nodes;
+
+  /** The free intervals of the rooms below one node of the segment tree. */
+  private static final class Node {
+    final IntervalList free;
+    // For each interval in free, the position of its room in the sorted rooms.
+    final int[] roomOf;
+    final IntervalTree tree;
+
+    Node(IntervalList free, int[] roomOf) {
+      this.free = free;
+      this.roomOf = roomOf;
+      this.tree = new IntervalTree(free.asTimeRanges());
+    }
+  }
+
+  /**
+   * Creates a new index of when each room is free during {@code horizon}.
+   *
+   * @param rooms The rooms to index. Must be non-null.
+   * @param bookings The events that book the rooms, with each room listed among the attendees of
+   *     its events by name. Must be non-null.
+   * @param horizon The span of time to index. Lookups only find free times inside it. Must be
+   *     non-null.
+   */
+  public RoomIndex(Collection<Room> rooms, EventIndex bookings, TimeRange horizon) {
+    if (rooms == null) {
+      throw new IllegalArgumentException("rooms cannot be null. Use empty collection instead.");
+    }
+
+    if (bookings == null) {
+      throw new IllegalArgumentException("bookings cannot be null");
+    }
+
+    if (horizon == null) {
+      throw new IllegalArgumentException("horizon cannot be null");
+    }
+
+    this.horizon = horizon;
+    this.rooms = rooms.toArray(new Room[0]);
+    Arrays.sort(this.rooms, Comparator.comparingInt(Room::getCapacity));
+
+    int leaves = 1;
+    while (leaves < this.rooms.length) {
+      leaves *= 2;
+    }
+    this.leaves = leaves;
+    this.nodes = new Node[2 * leaves];
+
+    for (int p = 0; p < this.rooms.length; p++) {
+      IntervalList free =
+          bookings
+              .getBusyIntervals(this.rooms[p].getName())
+              .complement(horizon.start(), horizon.end());
+      int[] roomOf = new int[free.size()];
+      Arrays.fill(roomOf, p);
+      nodes[leaves + p] = new Node(free, roomOf);
+    }
+
+    // Each inner node holds the intervals of its two children, left child first.
+    for (int i = leaves - 1; i >= 1; i--) {
+      Node left = nodes[2 * i];
+      Node right = nodes[2 * i + 1];
+      if (left == null || right == null) {
+        nodes[i] = left == null ? right : left;
+        continue;
+      }
+
+      IntervalList free = new IntervalList(left.free.size() + right.free.size());
+      int[] roomOf = new int[left.free.size() + right.free.size()];
+      int length = 0;
+      for (Node child : new Node[] {left, right}) {
+        for (int j = 0; j < child.free.size(); j++) {
+          free.add(child.free.start(j), child.free.end(j));
+          roomOf[length++] = child.roomOf[j];
+        }
+      }
+      nodes[i] = new Node(free, roomOf);
+    }
+  }
+
+  /**
+   * Returns the span of time that this index covers.
+   */
+  public TimeRange getHorizon() {
+    return horizon;
+  }
+
+  /**
+   * Returns the number of rooms in this index.
+   */
+  public int size() {
+    return rooms.length;
+  }
+
+  /**
+   * Returns the rooms that hold at least {@code minCapacity} people and are free for all of
+   * {@code when}, smallest first.
+   */
+  public List<Room> getFreeRooms(TimeRange when, int minCapacity) {
+    List<Room> free = new ArrayList<>();
+    forEachFreeRoom(
+        when,
+        minCapacity,
+        (room, start, end) -> {
+          if (start == when.start() && end == when.end()) {
+            free.add(room);
+          }
+        });
+    Collections.sort(free, Comparator.comparingInt(Room::getCapacity));
+    return free;
+  }
+
+  /**
+   * Calls {@code visitor} for every free interval of a room holding at least {@code minCapacity}
+   * people that overlaps {@code window}, clipped to the window.
+   */
+  void forEachFreeRoom(TimeRange window, int minCapacity, FreeRoomVisitor visitor) {
+    // Binary search for the first room that is big enough.
+    int lo = 0;
+    int hi = rooms.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (rooms[mid].getCapacity() >= minCapacity) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+
+    // Walk up from both ends of [lo, rooms.length), visiting the nodes that cover it exactly.
+    int left = lo + leaves;
+    int right = rooms.length + leaves;
+    while (left < right) {
+      if ((left & 1) == 1) {
+        visit(nodes[left++], window, visitor);
+      }
+      if ((right & 1) == 1) {
+        visit(nodes[--right], window, visitor);
+      }
+      left >>= 1;
+      right >>= 1;
+    }
+  }
+
+  private void visit(Node node, TimeRange window, FreeRoomVisitor visitor) {
+    if (node == null) {
+      return;
+    }
+
+    node.tree.forEachOverlapping(
+        window,
+        id ->
+            visitor.visit(
+                rooms[node.roomOf[id]],
+                Math.max(node.free.start(id), window.start()),
+                Math.min(node.free.end(id), window.end())));
+  }
+}
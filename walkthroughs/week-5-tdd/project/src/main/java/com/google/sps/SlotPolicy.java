@@ -0,0 +1,89 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+/**
+ * A way of ranking meeting slots for {@link FindMeetingQuery#queryRanked}. Every slot gets a score
+ * from its start time and the number of optional attendees who cannot come, and lower scores are
+ * better. Slots with the same score are ranked by their start time.
+ *
+ * A policy also gives a lower bound on the score of every slot that starts at or after a time.
+ * Slots are scanned in order of their start times, so the scan can stop as soon as this bound shows
+ * that no slot still to come can beat the ones already found.
+ */
+public interface SlotPolicy {
+  /**
+   * Returns the score of the slot starting at {@code start} that {@code optionalConflicts}
+   * optional attendees cannot come to. Lower is better.
+   */
+  long score(int start, int optionalConflicts);
+
+  /**
+   * Returns a score that is at most the score of any slot starting at or after {@code start}.
+   */
+  long lowerBound(int start);
+
+  /**
+   * Ranks the earliest slots first.
+   */
+  static SlotPolicy earliest() {
+    return new SlotPolicy() {
+      @Override
+      public long score(int start, int optionalConflicts) {
+        return start;
+      }
+
+      @Override
+      public long lowerBound(int start) {
+        return start;
+      }
+    };
+  }
+
+  /**
+   * Ranks the slots that start closest to {@code preferredStart} first, whether before or after.
+   */
+  static SlotPolicy closestTo(int preferredStart) {
+    return new SlotPolicy() {
+      @Override
+      public long score(int start, int optionalConflicts) {
+        return Math.abs((long) start - preferredStart);
+      }
+
+      @Override
+      public long lowerBound(int start) {
+        return Math.max(0, (long) start - preferredStart);
+      }
+    };
+  }
+
+  /**
+   * Ranks the slots that the most optional attendees can come to first, and the earliest of those
+   * first when there is a tie.
+   */
+  static SlotPolicy fewestOptionalConflicts() {
+    return new SlotPolicy() {
+      @Override
+      public long score(int start, int optionalConflicts) {
+        // Starts fit in an int, so every extra conflict outweighs any difference in start time.
+        return ((long) optionalConflicts << 32) + start;
+      }
+
+      @Override
+      public long lowerBound(int start) {
+        return start;
+      }
+    };
+  }
+}
@@ -0,0 +1,137 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps.servlets;
+
+import com.google.sps.EventLoader;
+import com.google.sps.EventStore;
+import com.google.sps.Events;
+import com.google.sps.InMemoryEventStore;
+import com.google.sps.MappedCalendar;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Creates the {@link EventStore} that the servlets answer queries against when the app starts.
+ * The store holds the sample events from {@link Events}, unless the {@code events-file} context
+ * parameter or the {@code events.file} system property names a JSON or CSV file to import instead.
+ *
+ * The {@code events-snapshot} context parameter or the {@code events.snapshot} system property
+ * names a {@link MappedCalendar} snapshot file. An import is written to it, and when there is
+ * nothing to import the store is loaded from it instead. Until events are added, plain queries are
+ * then answered straight from the memory-mapped snapshot, without building an index first.
+ */
+@WebListener
+public class EventStoreListener implements ServletContextListener {
+  private static final String STORE_ATTRIBUTE = EventStore.class.getName();
+  private static final String CALENDAR_ATTRIBUTE = MappedCalendar.class.getName();
+  private static final String CALENDAR_VERSION_ATTRIBUTE = CALENDAR_ATTRIBUTE + ".version";
+
+  /**
+   * Returns the store that was created for {@code context}.
+   */
+  static EventStore getStore(ServletContext context) {
+    EventStore store = (EventStore) context.getAttribute(STORE_ATTRIBUTE);
+    if (store == null) {
+      throw new IllegalStateException("the event store has not been created yet");
+    }
+    return store;
+  }
+
+  /**
+   * Returns the memory-mapped snapshot that holds the same events as version {@code version} of
+   * the store, or null if there is no snapshot or events have been added since it was loaded.
+   */
+  static MappedCalendar getCalendar(ServletContext context, long version) {
+    Long calendarVersion = (Long) context.getAttribute(CALENDAR_VERSION_ATTRIBUTE);
+    if (calendarVersion == null || calendarVersion != version) {
+      return null;
+    }
+    return (MappedCalendar) context.getAttribute(CALENDAR_ATTRIBUTE);
+  }
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    ServletContext context = event.getServletContext();
+    String file = getParameter(context, "events-file", "events.file");
+    String snapshot = getParameter(context, "events-snapshot", "events.snapshot");
+
+    EventStore store = new InMemoryEventStore();
+    MappedCalendar calendar = null;
+    if (file == null && snapshot != null && Files.exists(Paths.get(snapshot))) {
+      calendar = openSnapshot(Paths.get(snapshot));
+      store.addAll(calendar.getEvents());
+      context.log("Loaded " + calendar.getEventCount() + " events from " + snapshot);
+    } else if (file == null) {
+      store.addAll(Arrays.asList(Events.events));
+    } else {
+      try (Reader in = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+        int count = file.endsWith(".csv")
+            ? EventLoader.loadCsv(in, store)
+            : EventLoader.loadJson(in, store);
+        context.log("Imported " + count + " events from " + file);
+      } catch (IOException e) {
+        throw new IllegalStateException("could not import events from " + file, e);
+      }
+
+      if (snapshot != null) {
+        try {
+          MappedCalendar.write(store.getEvents(), Paths.get(snapshot));
+        } catch (IOException e) {
+          throw new IllegalStateException("could not write a snapshot to " + snapshot, e);
+        }
+        calendar = openSnapshot(Paths.get(snapshot));
+        context.log("Wrote a snapshot of the imported events to " + snapshot);
+      }
+    }
+
+    context.setAttribute(STORE_ATTRIBUTE, store);
+    if (calendar != null) {
+      context.setAttribute(CALENDAR_ATTRIBUTE, calendar);
+      context.setAttribute(CALENDAR_VERSION_ATTRIBUTE, store.getVersion());
+    }
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    event.getServletContext().removeAttribute(STORE_ATTRIBUTE);
+    event.getServletContext().removeAttribute(CALENDAR_ATTRIBUTE);
+    event.getServletContext().removeAttribute(CALENDAR_VERSION_ATTRIBUTE);
+  }
+
+  /**
+   * Returns the context parameter called {@code name}, or the system property called
+   * {@code property} if the parameter is not set.
+   */
+  private static String getParameter(ServletContext context, String name, String property) {
+    String value = context.getInitParameter(name);
+    return value != null ? value : System.getProperty(property);
+  }
+
+  private static MappedCalendar openSnapshot(Path file) {
+    try {
+      return MappedCalendar.open(file);
+    } catch (IOException e) {
+      throw new IllegalStateException("could not open the snapshot in " + file, e);
+    }
+  }
+}
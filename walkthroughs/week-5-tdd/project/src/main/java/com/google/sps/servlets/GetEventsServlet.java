@@ -11,26 +11,205 @@
 // WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
 // See the License for the specific language governing permissions and
 // limitations under the License.
-
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.Event;
+import com.google.sps.EventCatalog;
+import com.google.sps.EventStore;
+import com.google.sps.SchedulerJson;
+import com.google.sps.TimeRange;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Serves the events on the calendar. A plain GET returns every event as a JSON array. The body is
+ * encoded once for each version of the calendar, both as is and gzipped, and carries a strong ETag
+ * so that clients polling with {@code If-None-Match} get a 304 until the calendar changes.
+ *
+ * With any of the {@code attendee}, {@code start}, {@code end} (epoch minutes, end exclusive),
+ * {@code cursor} or {@code limit} parameters, the response is instead one page of the matching
+ * events: {"events": [...], "next": cursor}, where next is missing on the last page.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private static final Type EVENTS_TYPE = new TypeToken<Collection<Event>>() {}.getType();
+
+  private static final int DEFAULT_LIMIT = 100;
+  private static final int MAX_LIMIT = 1000;
+
+  private EventStore store;
+
+  // The encoded bodies for the latest version of the calendar that was asked for. Two requests may
+  // both encode a new version, which is harmless because the bodies would be the same.
+  private volatile EncodedEvents encoded;
+
+  /** The JSON of every event in one version of the calendar, encoded ahead of time. */
+  private static final class EncodedEvents {
+    final long version;
+    final byte[] identity;
+    final byte[] gzip;
+    final String identityTag;
+    final String gzipTag;
+
+    EncodedEvents(CalendarSnapshot snapshot) throws IOException {
+      ByteArrayOutputStream json = new ByteArrayOutputStream();
+      Writer out = new OutputStreamWriter(json, StandardCharsets.UTF_8);
+      SchedulerJson.write(snapshot.getEvents(), EVENTS_TYPE, out);
+      out.flush();
+
+      ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzipOut = new GZIPOutputStream(gzipped)) {
+        gzipOut.write(json.toByteArray());
+      }
+
+      this.version = snapshot.getVersion();
+      this.identity = json.toByteArray();
+      this.gzip = gzipped.toByteArray();
+      // The tag depends on the content rather than the version, so it survives restarts, and the
+      // two encodings get different tags because their bytes differ.
+      String hash = hash(identity);
+      this.identityTag = '"' + hash + '"';
+      this.gzipTag = '"' + hash + "-gzip" + '"';
+    }
+  }
+
+  @Override
+  public void init() {
+    store = EventStoreListener.getStore(getServletContext());
+  }
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    CalendarSnapshot snapshot = store.getSnapshot();
+    if (isPageRequest(request)) {
+      writePage(snapshot, request, response);
+      return;
+    }
+
+    EncodedEvents encoded = this.encoded;
+    if (encoded == null || encoded.version != snapshot.getVersion()) {
+      encoded = new EncodedEvents(snapshot);
+      this.encoded = encoded;
+    }
 
-    // Send the JSON back as the response
+    boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String tag = gzip ? encoded.gzipTag : encoded.identityTag;
+    response.setHeader("ETag", tag);
+    response.setHeader("Vary", "Accept-Encoding");
+    // Let clients keep the body, but make them check that it is still current before using it.
+    response.setHeader("Cache-Control", "no-cache");
+    if (matches(request.getHeader("If-None-Match"), encoded)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    byte[] body = gzip ? encoded.gzip : encoded.identity;
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    response.setCharacterEncoding("UTF-8");
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /** Writes the page of events that the filter and paging parameters ask for. */
+  private static void writePage(CalendarSnapshot snapshot, HttpServletRequest request,
+      HttpServletResponse response) throws IOException {
+    EventCatalog.Page page;
+    try {
+      TimeRange window = null;
+      String start = request.getParameter("start");
+      String end = request.getParameter("end");
+      if (start != null || end != null) {
+        int from = start == null ? 0 : Integer.parseInt(start);
+        int to = end == null ? Integer.MAX_VALUE : Integer.parseInt(end);
+        if (to <= from) {
+          throw new IllegalArgumentException("end must be after start");
+        }
+        window = TimeRange.fromStartEnd(from, to, false);
+      }
+      String limit = request.getParameter("limit");
+      page = snapshot.getCatalog().find(request.getParameter("attendee"), window,
+          request.getParameter("cursor"),
+          limit == null ? DEFAULT_LIMIT : Math.min(Integer.parseInt(limit), MAX_LIMIT));
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    response.setContentType("application/json");
+    SchedulerJson.write(page, EventCatalog.Page.class, response.getWriter());
+  }
+
+  private static boolean isPageRequest(HttpServletRequest request) {
+    for (String name : new String[] {"attendee", "start", "end", "cursor", "limit"}) {
+      if (request.getParameter(name) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns whether an Accept-Encoding header allows gzip, which "gzip;q=0" refuses. */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (parts[0].trim().equalsIgnoreCase("gzip")) {
+        return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether an If-None-Match header names either encoding of the events. The comparison is
+   * weak, as the header requires, so a "W/" prefix is ignored.
+   */
+  private static boolean matches(String ifNoneMatch, EncodedEvents encoded) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(encoded.identityTag) || tag.equals(encoded.gzipTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the first 128 bits of the SHA-256 hash of {@code bytes} in hexadecimal. */
+  private static String hash(byte[] bytes) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+      StringBuilder hex = new StringBuilder();
+      for (int i = 0; i < 16; i++) {
+        hex.append(String.format("%02x", digest[i]));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
   }
 }
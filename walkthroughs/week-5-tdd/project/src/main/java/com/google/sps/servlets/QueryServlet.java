@@ -14,14 +14,21 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.ConflictSlot;
+import com.google.sps.EventStore;
 import com.google.sps.FindMeetingQuery;
+import com.google.sps.MappedCalendar;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryCache;
+import com.google.sps.SchedulerJson;
+import com.google.sps.SlotPolicy;
 import com.google.sps.TimeRange;
-import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
-import java.util.Arrays;
+import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -29,23 +36,95 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  private static final Type ANSWER_TYPE = new TypeToken<Collection<TimeRange>>() {}.getType();
+  private static final Type CONFLICTS_TYPE = new TypeToken<List<ConflictSlot>>() {}.getType();
+
+  // The UI polls with the same requests over and over, so recent answers are kept in memory.
+  static final QueryCache CACHE = new QueryCache(1024);
+
+  private EventStore store;
+
   @Override
-  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
+  public void init() {
+    store = EventStoreListener.getStore(getServletContext());
+  }
 
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    MeetingRequest meetingRequest =
+        SchedulerJson.GSON.fromJson(request.getReader(), MeetingRequest.class);
+
+    // Every query works on one immutable snapshot of the calendar, so it needs no locks and its
+    // answer always matches the version it is cached under.
+    CalendarSnapshot snapshot = store.getSnapshot();
+
+    // With a limit, only the best few slots are wanted, ranked the way the rank parameter says.
+    if (request.getParameter("limit") != null) {
+      SlotPolicy policy;
+      int limit;
+      try {
+        policy = getPolicy(request.getParameter("rank"), request.getParameter("preferred"));
+        limit = Integer.parseInt(request.getParameter("limit"));
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        return;
+      }
+      if (limit <= 0) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "limit must be positive");
+        return;
+      }
 
-    // Find the possible meeting times.
+      Collection<TimeRange> slots = new FindMeetingQuery().queryRanked(
+          snapshot.getIndex(), meetingRequest, TimeRange.WHOLE_DAY, policy, limit);
+      response.setContentType("application/json");
+      SchedulerJson.write(slots, ANSWER_TYPE, response.getWriter());
+      return;
+    }
+
+    // Find the possible meeting times, or reuse them if the same request was asked about this
+    // version of the calendar before. While the calendar is still the one loaded from a snapshot
+    // file, the busy times are read from the mapped file instead of building an index.
     FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    MappedCalendar calendar =
+        EventStoreListener.getCalendar(getServletContext(), snapshot.getVersion());
+    Collection<TimeRange> answer = CACHE.get(snapshot.getVersion(), meetingRequest,
+        () -> calendar != null
+            ? findMeetingQuery.query(calendar, meetingRequest, TimeRange.WHOLE_DAY)
+            : findMeetingQuery.query(snapshot.getIndex(), meetingRequest));
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    // Rather than leave the caller to retry with fewer attendees, the fallback parameter asks for
+    // the times that the fewest attendees cannot make, with who they are.
+    if (answer.isEmpty() && "fewest-conflicts".equals(request.getParameter("fallback"))) {
+      List<ConflictSlot> slots = findMeetingQuery.queryFewestConflicts(
+          snapshot.getIndex(), meetingRequest, TimeRange.WHOLE_DAY);
+      response.setContentType("application/json");
+      SchedulerJson.write(slots, CONFLICTS_TYPE, response.getWriter());
+      return;
+    }
 
-    // Send the JSON back as the response
+    // Write the times as JSON straight to the response
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    SchedulerJson.write(answer, ANSWER_TYPE, response.getWriter());
+  }
+
+  /**
+   * Returns the ranking for the rank parameter: "earliest" (the default), "closest" to the minute
+   * of the day in the preferred parameter, or "fewest-conflicts" with optional attendees.
+   */
+  private static SlotPolicy getPolicy(String rank, String preferred) {
+    if (rank == null || rank.equals("earliest")) {
+      return SlotPolicy.earliest();
+    }
+    if (rank.equals("closest")) {
+      if (preferred == null) {
+        throw new IllegalArgumentException("closest needs a preferred start");
+      }
+      return SlotPolicy.closestTo(Integer.parseInt(preferred));
+    }
+    if (rank.equals("fewest-conflicts")) {
+      return SlotPolicy.fewestOptionalConflicts();
+    }
+    throw new IllegalArgumentException("unknown rank: " + rank);
   }
 }
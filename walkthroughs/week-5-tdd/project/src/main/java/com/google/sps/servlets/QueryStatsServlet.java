@@ -0,0 +1,45 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.QueryCache;
+import com.google.sps.SchedulerJson;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports how well the answer cache of {@link QueryServlet} is doing, as JSON with the number of
+ * hits and misses so far and how full the cache is.
+ */
+@WebServlet("/query-stats")
+public class QueryStatsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    QueryCache cache = QueryServlet.CACHE;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("hits", cache.getHitCount());
+    stats.put("misses", cache.getMissCount());
+    stats.put("size", cache.size());
+    stats.put("capacity", cache.getCapacity());
+
+    response.setContentType("application/json");
+    SchedulerJson.write(stats, Map.class, response.getWriter());
+  }
+}
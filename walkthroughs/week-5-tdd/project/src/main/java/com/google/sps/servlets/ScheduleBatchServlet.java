@@ -0,0 +1,64 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps.servlets;
+
+import com.google.sps.BatchScheduler;
+import com.google.sps.EventStore;
+import com.google.sps.MeetingRequest;
+import com.google.sps.SchedulerJson;
+import com.google.sps.TimeRange;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Places a whole list of meetings in one POST so that they do not clash with each other. The
+ * response is {"placements": [...], "unplaced": [...]}, with the time of each meeting in the same
+ * order as the requests (null if it could not be placed) and the positions of the meetings that
+ * could not be placed.
+ */
+@WebServlet("/schedule-batch")
+public class ScheduleBatchServlet extends HttpServlet {
+  private static final Type REQUESTS_TYPE = new TypeToken<List<MeetingRequest>>() {}.getType();
+
+  private EventStore store;
+
+  @Override
+  public void init() {
+    store = EventStoreListener.getStore(getServletContext());
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Convert the JSON to a list of MeetingRequests.
+    List<MeetingRequest> meetingRequests =
+        SchedulerJson.GSON.fromJson(request.getReader(), REQUESTS_TYPE);
+    if (meetingRequests == null) {
+      meetingRequests = Collections.emptyList();
+    }
+
+    BatchScheduler.Result result = new BatchScheduler()
+        .schedule(store.getSnapshot().getIndex(), meetingRequests, TimeRange.WHOLE_DAY);
+
+    // Write the schedule as JSON straight to the response
+    response.setContentType("application/json");
+    SchedulerJson.write(result, BatchScheduler.Result.class, response.getWriter());
+  }
+}
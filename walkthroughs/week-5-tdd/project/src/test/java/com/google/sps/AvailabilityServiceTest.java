@@ -0,0 +1,143 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AvailabilityServiceTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery();
+  }
+
+  @Test
+  public void addAndRemoveOnlyChangeAttendeesOfTheEvent() {
+    AvailabilityService availability = new AvailabilityService(TimeRange.WHOLE_DAY);
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+
+    availability.addEvent(event);
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true)),
+        availability.getFreeTimes(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), availability.getFreeTimes(PERSON_B));
+
+    Assert.assertTrue(availability.removeEvent(event));
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), availability.getFreeTimes(PERSON_A));
+    Assert.assertFalse(availability.removeEvent(event));
+  }
+
+  @Test
+  public void removingOneOfTwoOverlappingEventsKeepsTheOther() {
+    Event longEvent = new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false), Arrays.asList(PERSON_A));
+    Event shortEvent = new Event("Event 2",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_A));
+    AvailabilityService availability = new AvailabilityService(Arrays.asList(longEvent, shortEvent));
+
+    availability.removeEvent(longEvent);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true)),
+        availability.getFreeTimes(PERSON_A));
+  }
+
+  @Test
+  public void removeOnlyTakesAwayEventsThatWereAdded() {
+    TimeRange morning = TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false);
+    Event event = new Event("Event 1", morning, Arrays.asList(PERSON_A));
+    Event other = new Event("Event 2", morning, Arrays.asList(PERSON_A));
+    AvailabilityService availability = new AvailabilityService(Arrays.asList(event, event));
+    List<TimeRange> busyMorning = availability.getFreeTimes(PERSON_A);
+
+    // An event with the same time and attendees is not the same event.
+    Assert.assertFalse(availability.removeEvent(other));
+    Assert.assertEquals(busyMorning, availability.getFreeTimes(PERSON_A));
+
+    // An event that was added twice stays until it is removed twice.
+    Assert.assertTrue(availability.removeEvent(event));
+    Assert.assertEquals(busyMorning, availability.getFreeTimes(PERSON_A));
+    Assert.assertTrue(availability.removeEvent(event));
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), availability.getFreeTimes(PERSON_A));
+    Assert.assertFalse(availability.removeEvent(event));
+  }
+
+  @Test
+  public void loadingEventsMatchesAddingThemOneAtATime() {
+    List<Event> events = Arrays.asList(Events.events);
+    AvailabilityService loaded = new AvailabilityService(events);
+    AvailabilityService added = new AvailabilityService(TimeRange.WHOLE_DAY);
+    for (Event event : events) {
+      added.addEvent(event);
+    }
+
+    for (String person : new EventIndex(events).getAttendees()) {
+      Assert.assertEquals(added.getFreeTimes(person), loaded.getFreeTimes(person));
+    }
+  }
+
+  @Test
+  public void queriesMatchIndexAfterEveryUpdate() {
+    // Add the sample events one at a time and then take them away again, checking every pair of
+    // people after each change.
+    List<Event> events = Arrays.asList(Events.events);
+    List<String> people = new ArrayList<>(new EventIndex(events).getAttendees());
+    AvailabilityService availability = new AvailabilityService(TimeRange.WHOLE_DAY);
+
+    List<Event> added = new ArrayList<>();
+    for (Event event : events) {
+      availability.addEvent(event);
+      added.add(event);
+      assertSameAnswers(availability, new EventIndex(added), people);
+    }
+    for (Event event : events) {
+      availability.removeEvent(event);
+      added.remove(event);
+      assertSameAnswers(availability, new EventIndex(added), people);
+    }
+  }
+
+  private void assertSameAnswers(
+      AvailabilityService availability, EventIndex index, List<String> people) {
+    for (String first : people) {
+      for (String second : people) {
+        MeetingRequest request = new MeetingRequest(Arrays.asList(first), 30);
+        request.addOptionalAttendee(second);
+
+        Assert.assertEquals(query.query(index, request), query.query(availability, request));
+      }
+    }
+  }
+}
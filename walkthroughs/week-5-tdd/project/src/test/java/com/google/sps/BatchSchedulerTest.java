@@ -0,0 +1,113 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BatchSchedulerTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final TimeRange MORNING = TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false);
+
+  @Test
+  public void placesMostConstrainedMeetingFirst() {
+    // Person B is only free from 9am to 10am, so the shared meeting has to go there even though
+    // the first request would fit there too.
+    EventIndex index = EventIndex.of(new Event("Busy",
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), Arrays.asList(PERSON_B)));
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), 60),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 60));
+
+    BatchScheduler.Result result = new BatchScheduler().schedule(index, requests, MORNING);
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartDuration(TIME_1000AM, 60),
+        TimeRange.fromStartDuration(TIME_0900AM, 60)), result.getPlacements());
+    Assert.assertTrue(result.getUnplaced().isEmpty());
+  }
+
+  @Test
+  public void reportsMeetingsThatDoNotFit() {
+    // Three hour-long meetings for the same person in a two hour window.
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 60),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_C), 60),
+        new MeetingRequest(Arrays.asList(PERSON_A), 60));
+
+    BatchScheduler.Result result =
+        new BatchScheduler().schedule(EventIndex.of(), requests, MORNING);
+
+    Assert.assertEquals(1, result.getUnplaced().size());
+    List<TimeRange> placed = new ArrayList<>(result.getPlacements());
+    placed.removeAll(Collections.singleton(null));
+    Assert.assertEquals(2, placed.size());
+    Assert.assertFalse(placed.get(0).overlaps(placed.get(1)));
+  }
+
+  @Test
+  public void placesHundredsOfMeetingsWithoutClashes() {
+    Random random = new Random(25);
+    List<Event> events = new ArrayList<>();
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      String person = "Person " + i;
+      people.add(person);
+      events.add(new Event("Busy", TimeRange.fromStartDuration(60 * random.nextInt(24), 60),
+          Arrays.asList(person)));
+    }
+    EventIndex index = new EventIndex(events);
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      Collections.shuffle(people, random);
+      requests.add(new MeetingRequest(people.subList(0, 2 + random.nextInt(3)),
+          30 * (1 + random.nextInt(3))));
+    }
+
+    BatchScheduler.Result result =
+        new BatchScheduler().schedule(index, requests, TimeRange.WHOLE_DAY);
+
+    // Every placed meeting fits its attendees' calendars and the other placed meetings.
+    List<Event> placed = new ArrayList<>(events);
+    for (int i = 0; i < requests.size(); i++) {
+      TimeRange when = result.getPlacements().get(i);
+      Assert.assertEquals(when == null, result.getUnplaced().contains(i));
+      if (when != null) {
+        for (Event event : placed) {
+          Assert.assertFalse(event.getWhen().overlaps(when)
+              && !Collections.disjoint(event.getAttendees(), requests.get(i).getAttendees()));
+        }
+        placed.add(new Event("Meeting " + i, when, requests.get(i).getAttendees()));
+      }
+    }
+    Assert.assertTrue(result.getUnplaced().size() < requests.size() / 10);
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventCatalogTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  // Added out of order, so the catalog has to sort them.
+  private static final Event LATE = new Event("Late",
+      TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), Arrays.asList(PERSON_B));
+  private static final Event ALL_DAY = new Event("All day", TimeRange.WHOLE_DAY,
+      Arrays.asList(PERSON_A));
+  private static final Event EARLY = new Event("Early",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A, PERSON_B));
+
+  private static final EventCatalog CATALOG = new EventCatalog(Arrays.asList(LATE, ALL_DAY, EARLY));
+
+  @Test
+  public void findsEventsByAttendee() {
+    EventCatalog.Page page = CATALOG.find(PERSON_B, null, null, 10);
+
+    Assert.assertEquals(Arrays.asList(EARLY, LATE), page.getEvents());
+    Assert.assertNull(page.getNext());
+  }
+
+  @Test
+  public void findsEventsOverlappingWindow() {
+    TimeRange window = TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false);
+
+    // The all-day event starts before the window but runs into it, while the early one only
+    // touches it.
+    Assert.assertEquals(Arrays.asList(ALL_DAY, LATE), CATALOG.find(null, window, null, 10)
+        .getEvents());
+    Assert.assertEquals(Arrays.asList(ALL_DAY), CATALOG.find(PERSON_A, window, null, 10)
+        .getEvents());
+  }
+
+  @Test
+  public void cursorsWalkThroughEveryPage() {
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(i % 7, 30),
+          Arrays.asList(i % 2 == 0 ? PERSON_A : PERSON_B)));
+    }
+    EventCatalog catalog = new EventCatalog(events);
+
+    List<Event> seen = new ArrayList<>();
+    String cursor = null;
+    do {
+      EventCatalog.Page page = catalog.find(null, null, cursor, 4);
+      Assert.assertTrue(page.getEvents().size() <= 4);
+      seen.addAll(page.getEvents());
+      cursor = page.getNext();
+    } while (cursor != null);
+
+    Assert.assertEquals(25, seen.size());
+    Assert.assertTrue(seen.containsAll(events));
+    for (int i = 1; i < seen.size(); i++) {
+      Assert.assertTrue(seen.get(i - 1).getWhen().start() <= seen.get(i).getWhen().start());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsInvalidCursor() {
+    CATALOG.find(null, null, "not a cursor", 10);
+  }
+}
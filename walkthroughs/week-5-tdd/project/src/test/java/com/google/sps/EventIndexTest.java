@@ -0,0 +1,102 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Test
+  public void mergesOverlappingTimesPerAttendee() {
+    EventIndex index = EventIndex.of(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false)),
+        index.getBusyTimes(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)),
+        index.getBusyTimes(PERSON_B));
+  }
+
+  @Test
+  public void unknownAttendeeIsNeverBusy() {
+    EventIndex index = EventIndex.of();
+
+    Assert.assertEquals(0, index.getBusyCount(PERSON_A));
+    Assert.assertTrue(index.getBusyTimes(PERSON_A).isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void minuteQueryRejectsIndexOfSeveralDays() {
+    // The second event is on the next day, which the minute bitmaps cannot hold.
+    int nextDay = EpochMinutes.MINUTES_PER_DAY;
+    EventIndex index = EventIndex.of(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(nextDay + TIME_0800AM, nextDay + TIME_0900AM,
+            false), Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+
+    Assert.assertFalse(index.isSingleDay());
+    Assert.assertTrue(EventIndex.of().isSingleDay());
+    // The interval based query still works on the same index.
+    Assert.assertFalse(new FindMeetingQuery().query(index, request).isEmpty());
+
+    new FindMeetingQuery().queryByMinute(index, request);
+  }
+
+  @Test
+  public void indexedQueryMatchesScanningQuery() {
+    // Ask for every pair of people in the sample calendar with a few different durations. The
+    // indexed query must give exactly the same answers as scanning the events.
+    List<Event> events = Arrays.asList(Events.events);
+    EventIndex index = new EventIndex(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    List<String> people = new ArrayList<>(index.getAttendees());
+    for (int duration : new int[] {15, 30, 60, 120}) {
+      for (String first : people) {
+        for (String second : people) {
+          MeetingRequest request = new MeetingRequest(Arrays.asList(first, second), duration);
+
+          Collection<TimeRange> expected = query.query(events, request);
+          Collection<TimeRange> actual = query.query(index, request);
+
+          Assert.assertEquals(expected, actual);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,132 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventLoaderTest {
+  private static final Event EVENT_A = new Event("Event 1", TimeRange.fromStartDuration(480, 30),
+      Arrays.asList("Person A"));
+  private static final Event EVENT_B = new Event("Lunch, with \"B\"",
+      TimeRange.fromStartDuration(720, 60), Arrays.asList("Person A", "Person B"));
+
+  @Test
+  public void loadsJsonArray() throws Exception {
+    String json = SchedulerJson.GSON.toJson(new Event[] {EVENT_A, EVENT_B});
+    EventStore store = new InMemoryEventStore();
+
+    int count = EventLoader.loadJson(new StringReader(json), store);
+
+    Assert.assertEquals(2, count);
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), store.getEvents());
+  }
+
+  @Test
+  public void loadsCsvWithHeaderAndQuotes() throws Exception {
+    String csv = "title,start,duration,attendees\n"
+        + "Event 1,480,30,Person A\n"
+        + "\"Lunch, with \"\"B\"\"\",720,60,Person A;Person B\n";
+    EventStore store = new InMemoryEventStore();
+
+    int count = EventLoader.loadCsv(new StringReader(csv), store);
+
+    Assert.assertEquals(2, count);
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), store.getEvents());
+  }
+
+  @Test
+  public void importPublishesOneSnapshot() throws Exception {
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < 25_000; i++) {
+      csv.append("Event ").append(i).append(',').append(i % 1400).append(",30,Person A\n");
+    }
+    EventStore store = new InMemoryEventStore(EVENT_A);
+    long version = store.getVersion();
+
+    int count = EventLoader.loadCsv(new StringReader(csv.toString()), store);
+
+    Assert.assertEquals(25_000, count);
+    Assert.assertEquals(25_001, store.size());
+    Assert.assertEquals(version + 1, store.getVersion());
+  }
+
+  @Test
+  public void invalidJsonEventIsReportedWithItsPosition() throws Exception {
+    String json = "[" + SchedulerJson.GSON.toJson(EVENT_A) + ", {\"attendees\": []}]";
+    EventStore store = new InMemoryEventStore();
+
+    try {
+      EventLoader.loadJson(new StringReader(json), store);
+      Assert.fail();
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("event 2 at $[1]"));
+    }
+    Assert.assertEquals(0, store.size());
+  }
+
+  @Test
+  public void importKeepsChangesMadeBeforeItIsCommitted() {
+    EventStore store = new InMemoryEventStore(EVENT_A);
+
+    EventStore.Import pending = store.beginImport();
+    pending.addAll(Arrays.asList(EVENT_B));
+    Event added = new Event("Event 3", TimeRange.fromStartDuration(900, 30),
+        Arrays.asList("Person C"));
+    store.add(added);
+    Assert.assertEquals(2, store.size());
+    pending.commit();
+
+    Assert.assertEquals(Arrays.asList(EVENT_A, added, EVENT_B), store.getEvents());
+  }
+
+  @Test
+  public void removeAndReplaceChangeOneEvent() {
+    EventStore store = new InMemoryEventStore(EVENT_A, EVENT_B);
+    Event moved = new Event("Event 1", TimeRange.fromStartDuration(540, 30),
+        Arrays.asList("Person A"));
+    long version = store.getVersion();
+
+    Assert.assertTrue(store.replace(EVENT_A, moved));
+    Assert.assertEquals(Arrays.asList(moved, EVENT_B), store.getEvents());
+    Assert.assertTrue(store.remove(EVENT_B));
+    Assert.assertFalse(store.remove(EVENT_B));
+    Assert.assertFalse(store.replace(EVENT_A, moved));
+
+    Assert.assertEquals(Arrays.asList(moved), store.getEvents());
+    Assert.assertEquals(version + 2, store.getVersion());
+  }
+
+  @Test
+  public void snapshotsDoNotChange() {
+    EventStore store = new InMemoryEventStore(EVENT_A);
+    long version = store.getVersion();
+
+    Collection<Event> snapshot = store.getEvents();
+    store.add(EVENT_B);
+
+    Assert.assertEquals(Arrays.asList(EVENT_A), snapshot);
+    Assert.assertEquals(2, store.size());
+    Assert.assertNotEquals(version, store.getVersion());
+  }
+}
@@ -18,7 +18,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -404,5 +406,419 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void mostOptionalAttendeesWhenNotAllCanCome() {
+    // No time works for A, B and C together, but both the early and the late time work for two of
+    // them. The times in the middle only work for one, so they should be dropped.
+    //
+    // Events  : |-------A-------|
+    //                           |-------B-------|
+    //                     |--C--------|
+    // Day     : |-------------------------------|
+    // Options : |--1--|                 |--2--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(expected, query.query(new EventIndex(events), request));
+    Assert.assertEquals(expected, query.queryByMinute(new EventIndex(events), request));
+  }
+
+  @Test
+  public void batchAnswersMatchSingleQueries() {
+    // Use enough requests that the batch gets split across several tasks.
+    List<Event> events = Arrays.asList(Events.events);
+    List<String> people = new ArrayList<>(new EventIndex(events).getAttendees());
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int duration : new int[] {15, 30, 60, 90}) {
+      for (String first : people) {
+        for (String second : people) {
+          MeetingRequest request = new MeetingRequest(Arrays.asList(first), duration);
+          request.addOptionalAttendee(second);
+          requests.add(request);
+        }
+      }
+    }
+
+    List<Collection<TimeRange>> actual = query.queryAll(events, requests);
+
+    Assert.assertEquals(requests.size(), actual.size());
+    for (int i = 0; i < requests.size(); i++) {
+      Assert.assertEquals(query.query(events, requests.get(i)), actual.get(i));
+    }
+  }
+
+  @Test
+  public void rankedSlotsFollowThePolicy() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> earliest = query.queryRanked(
+        events, request, TimeRange.WHOLE_DAY, SlotPolicy.earliest(), 2);
+    // 7:30am and 9:30am are both an hour away from 8:30am, so the earlier one wins the tie.
+    List<TimeRange> closest = query.queryRanked(
+        events, request, TimeRange.WHOLE_DAY, SlotPolicy.closestTo(TIME_0830AM), 3);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(0, DURATION_30_MINUTES),
+        TimeRange.fromStartDuration(15, DURATION_30_MINUTES)), earliest);
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        TimeRange.fromStartDuration(TIME_0900AM + 15, DURATION_30_MINUTES),
+        TimeRange.fromStartDuration(TIME_0800AM - 30, DURATION_30_MINUTES)), closest);
+  }
+
+  @Test
+  public void rankedSlotsAvoidOptionalConflicts() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<TimeRange> actual = query.queryRanked(
+        events, request, TimeRange.WHOLE_DAY, SlotPolicy.fewestOptionalConflicts(), 1);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES)), actual);
+  }
+
+  @Test
+  public void quorumLetsSomeAttendeesMiss() {
+    // Busy attendees: one from 8am, two from 8:30am, one from 9am, two from 9:30am, one from 10am
+    // and none from 11am.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_C)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B, PERSON_C), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.queryQuorum(events, request, 2);
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true)), actual);
+  }
+
+  @Test
+  public void quorumOfEveryoneMatchesQuery() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A, PERSON_B)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+
+    Assert.assertEquals(query.query(events, request), query.queryQuorum(events, request, 2));
+    Assert.assertTrue(query.queryQuorum(events, request, 3).isEmpty());
+  }
+
+  @Test
+  public void fallbackFindsTimesWithFewestConflicts() {
+    // Nobody is free for an hour at the same time, but only one person is busy at 8am and at 10am.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0800AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+
+    List<ConflictSlot> actual = query.queryFewestConflicts(events, request);
+
+    Assert.assertTrue(query.query(events, request).isEmpty());
+    Assert.assertEquals(Arrays.asList(
+        new ConflictSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_A)),
+        new ConflictSlot(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B))), actual);
+  }
+
+  @Test
+  public void fallbackWithoutConflictsMatchesQuery() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+
+    List<TimeRange> times = new ArrayList<>();
+    for (ConflictSlot slot : query.queryFewestConflicts(events, request)) {
+      Assert.assertTrue(slot.getConflicts().isEmpty());
+      times.add(slot.getWhen());
+    }
+
+    Assert.assertEquals(new ArrayList<>(query.query(events, request)), times);
+  }
+
+  @Test
+  public void freeTimesIteratorMatchesQuery() {
+    List<Event> events = Arrays.asList(Events.events);
+    EventIndex index = new EventIndex(events);
+    List<String> people = new ArrayList<>(index.getAttendees());
+
+    for (int duration : new int[] {15, 30, 60, 90}) {
+      for (String first : people) {
+        for (String second : people) {
+          MeetingRequest request = new MeetingRequest(Arrays.asList(first, second), duration);
+
+          List<TimeRange> actual = new ArrayList<>();
+          Iterator<TimeRange> times = query.freeTimes(index, request, TimeRange.WHOLE_DAY);
+          while (times.hasNext()) {
+            actual.add(times.next());
+          }
+
+          Assert.assertEquals(new ArrayList<>(query.query(events, request)), actual);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void findFirstStopsAtFirstFreeTime() {
+    EventIndex index = EventIndex.of(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+
+    TimeRange shortMeeting = query.findFirst(index,
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES),
+        TimeRange.WHOLE_DAY);
+    TimeRange longMeeting = query.findFirst(index,
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES),
+        TimeRange.WHOLE_DAY);
+    TimeRange tooLong = query.findFirst(index,
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_90_MINUTES),
+        TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false), shortMeeting);
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), longMeeting);
+    Assert.assertNull(tooLong);
+  }
+
+  @Test
+  public void largeRequestsMatchSmallerOnes() {
+    // Thousands of attendees, each with a meeting at some quarter hour between 9am and 5pm.
+    Random random = new Random(23);
+    List<Event> events = new ArrayList<>();
+    List<String> attendees = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      String attendee = "Person " + i;
+      attendees.add(attendee);
+      int start = TimeRange.getTimeInMinutes(9, 0) + 15 * random.nextInt(32);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, 30),
+          Arrays.asList(attendee)));
+    }
+    EventIndex index = new EventIndex(events);
+    MeetingRequest request = new MeetingRequest(attendees, DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(index, request);
+
+    Assert.assertEquals(query.query(events, request), actual);
+    Assert.assertFalse(actual.isEmpty());
+  }
+
+  @Test
+  public void manyOptionalAttendeesMatchIndexedQuery() {
+    // Hundreds of optional attendees, each at an hour-long event with another of them and person B.
+    Random random = new Random(10);
+    List<Event> events = new ArrayList<>();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    for (int i = 0; i < 400; i++) {
+      request.addOptionalAttendee("Person " + i);
+      List<String> attendees =
+          Arrays.asList("Person " + i, "Person " + random.nextInt(400), PERSON_B);
+      int start = TimeRange.getTimeInMinutes(8, 0) + 15 * random.nextInt(40);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, 60), attendees));
+    }
+    events.add(new Event("Lunch",
+        TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(12, 0), DURATION_60_MINUTES),
+        Arrays.asList(PERSON_A, "Person 7")));
+    EventIndex index = new EventIndex(events);
+
+    Collection<TimeRange> actual = query.query(events, request);
+
+    Assert.assertEquals(query.query(index, request), actual);
+    Assert.assertFalse(actual.isEmpty());
+  }
+
+  @Test
+  public void alignmentTrimsFreeTimes() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM + 5, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM + 10, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setAlignment(15);
+
+    Collection<TimeRange> actual = query.query(events, request);
+
+    // 8:35am is moved to 8:45am, which leaves too little time before 9:10am.
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true)), actual);
+  }
+
+  @Test
+  public void stepSuggestsSpacedSlots() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM + 5, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.setAlignment(15);
+    request.setStep(30);
+
+    Collection<TimeRange> actual = query.query(events, request);
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartDuration(TIME_0900AM + 15, DURATION_60_MINUTES),
+        TimeRange.fromStartDuration(TIME_0900AM + 45, DURATION_60_MINUTES)), actual);
+  }
+
+  @Test
+  public void granularityByMinuteMatchesQuery() {
+    List<Event> events = Arrays.asList(Events.events);
+    EventIndex index = new EventIndex(events);
+    List<String> people = new ArrayList<>(index.getAttendees());
+
+    for (int[] granularity : new int[][] {{5, 0}, {15, 0}, {0, 30}, {15, 45}, {10, 25}}) {
+      for (String first : people) {
+        for (String second : people) {
+          MeetingRequest request = new MeetingRequest(Arrays.asList(first), DURATION_30_MINUTES);
+          request.addOptionalAttendee(second);
+          request.setAlignment(granularity[0]);
+          request.setStep(granularity[1]);
+
+          Assert.assertEquals(query.query(index, request), query.queryByMinute(index, request));
+          Assert.assertEquals(query.query(events, request), query.query(index, request));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void rankedSlotsKeepTheStepAcrossOptionalGaps() {
+    // Person A is free from 7am to 10am, and optional person B only until 8am, which splits A's
+    // free time into two pieces in the middle of the step grid.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1",
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM - 60, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0800AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.setAlignment(15);
+    request.setStep(30);
+
+    List<TimeRange> actual = query.queryRanked(
+        events, request, TimeRange.WHOLE_DAY, SlotPolicy.earliest(), 10);
+
+    List<TimeRange> expected = new ArrayList<>();
+    for (int start = TIME_0800AM - 60; start < TIME_1000AM; start += 30) {
+      expected.add(TimeRange.fromStartDuration(start, DURATION_30_MINUTES));
+    }
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void granularityIsSharedByEveryEngine() {
+    List<Event> events = Arrays.asList(Events.events);
+    EventIndex index = new EventIndex(events);
+    List<String> people = new ArrayList<>(index.getAttendees());
+
+    for (int[] granularity : new int[][] {{15, 0}, {0, 30}, {10, 25}}) {
+      for (String first : people) {
+        for (String second : people) {
+          MeetingRequest request =
+              new MeetingRequest(Arrays.asList(first, second), DURATION_30_MINUTES);
+          request.setAlignment(granularity[0]);
+          request.setStep(granularity[1]);
+          List<TimeRange> expected = new ArrayList<>(query.query(events, request));
+
+          List<TimeRange> iterated = new ArrayList<>();
+          Iterator<TimeRange> times = query.freeTimes(index, request, TimeRange.WHOLE_DAY);
+          while (times.hasNext()) {
+            iterated.add(times.next());
+          }
+          Assert.assertEquals(expected, iterated);
+          Assert.assertEquals(expected.isEmpty() ? null : expected.get(0),
+              query.findFirst(index, request, TimeRange.WHOLE_DAY));
+          Assert.assertEquals(
+              expected, query.queryQuorum(events, request, request.getAttendees().size()));
+          if (!expected.isEmpty()) {
+            List<TimeRange> fallback = new ArrayList<>();
+            for (ConflictSlot slot : query.queryFewestConflicts(events, request)) {
+              fallback.add(slot.getWhen());
+            }
+            Assert.assertEquals(expected, fallback);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void fallbackKeepsTheStep() {
+    // Only person A is busy before 8am and only person B is busy from 9am.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0800AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    request.setStep(120);
+
+    List<ConflictSlot> actual = query.queryFewestConflicts(events, request);
+
+    List<ConflictSlot> expected = new ArrayList<>();
+    for (int start = TimeRange.START_OF_DAY; start + 60 <= TIME_0800AM; start += 120) {
+      expected.add(new ConflictSlot(
+          TimeRange.fromStartDuration(start, DURATION_60_MINUTES), Arrays.asList(PERSON_A)));
+    }
+    // Without an alignment, the starts are multiples of the step, so B's run starts at 10am.
+    for (int start = TIME_1000AM; start + 60 <= TimeRange.END_OF_DAY + 1; start += 120) {
+      expected.add(new ConflictSlot(
+          TimeRange.fromStartDuration(start, DURATION_60_MINUTES), Arrays.asList(PERSON_B)));
+    }
+    Assert.assertEquals(expected, actual);
+  }
+}
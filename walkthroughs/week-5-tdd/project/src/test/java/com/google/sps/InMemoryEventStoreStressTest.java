@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Runs meeting queries against a store on several threads while another thread keeps adding
+ * events, checking that every query sees a consistent snapshot. How the throughput scales with the
+ * number of threads is measured by {@code EventStoreBenchmark} in the benchmarks module.
+ */
+@RunWith(JUnit4.class)
+public final class InMemoryEventStoreStressTest {
+  private static final long RUN_MILLIS = 200;
+
+  @Test
+  public void readersSeeConsistentSnapshotsWhileWriterSwapsThem() throws Exception {
+    int readers = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    Assert.assertTrue(run(readers) > 0);
+  }
+
+  @Test
+  public void threadsShareOneIndex() throws Exception {
+    EventStore store = new InMemoryEventStore(Events.events);
+    CalendarSnapshot snapshot = store.getSnapshot();
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+    List<Future<EventIndex>> indexes = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      indexes.add(pool.submit(() -> {
+        start.await();
+        return snapshot.getIndex();
+      }));
+    }
+    start.countDown();
+
+    for (Future<EventIndex> index : indexes) {
+      Assert.assertSame(snapshot.getIndex(), index.get());
+    }
+    pool.shutdown();
+  }
+
+  /**
+   * Runs {@code readers} query threads and one writer for a while and returns the query count.
+   * Each query is answered from the index of the snapshot and checked against scanning its events.
+   */
+  private static long run(int readers) throws Exception {
+    EventStore store = new InMemoryEventStore();
+    AtomicBoolean done = new AtomicBoolean();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(readers + 1);
+
+    // The writer adds one event at a time, so every snapshot has exactly as many events as its
+    // version number.
+    Future<?> writer = pool.submit(() -> {
+      start.await();
+      for (int i = 0; !done.get(); i++) {
+        String person = "Person " + (i % 50);
+        int minute = (i * 7) % (TimeRange.WHOLE_DAY.duration() - 30);
+        store.add(new Event("Event " + i, TimeRange.fromStartDuration(minute, 30),
+            Arrays.asList(person)));
+        Thread.sleep(1);
+      }
+      return null;
+    });
+
+    List<Future<Long>> results = new ArrayList<>();
+    for (int reader = 0; reader < readers; reader++) {
+      results.add(pool.submit(() -> {
+        FindMeetingQuery query = new FindMeetingQuery();
+        MeetingRequest request = new MeetingRequest(Arrays.asList("Person 1", "Person 2"), 30);
+        start.await();
+        long count = 0;
+        while (!done.get()) {
+          CalendarSnapshot snapshot = store.getSnapshot();
+          Assert.assertEquals(snapshot.getVersion(), snapshot.size());
+          Assert.assertEquals(query.query(snapshot.getEvents(), request),
+              query.query(snapshot.getIndex(), request));
+          count++;
+        }
+        return count;
+      }));
+    }
+
+    start.countDown();
+    Thread.sleep(RUN_MILLIS);
+    done.set(true);
+
+    long total = 0;
+    for (Future<Long> result : results) {
+      total += result.get();
+    }
+    writer.get();
+    pool.shutdown();
+    pool.awaitTermination(1, TimeUnit.SECONDS);
+    return total;
+  }
+}
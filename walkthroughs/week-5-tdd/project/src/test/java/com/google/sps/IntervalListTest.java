@@ -0,0 +1,108 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalListTest {
+  @Test
+  public void normalizeSortsAndMerges() {
+    IntervalList list = new IntervalList().add(300, 400).add(100, 200).add(150, 250).add(250, 260);
+
+    list.normalize();
+
+    Assert.assertEquals(new IntervalList().add(100, 260).add(300, 400), list);
+  }
+
+  @Test
+  public void subtractSplitsIntervals() {
+    IntervalList list = new IntervalList().add(0, 100).add(200, 300);
+    IntervalList busy = new IntervalList().add(10, 20).add(50, 210).add(290, 400);
+
+    list.subtract(busy);
+
+    Assert.assertEquals(new IntervalList().add(0, 10).add(20, 50).add(210, 290), list);
+  }
+
+  @Test
+  public void spliceReplacesOnlyTheGivenSpan() {
+    IntervalList list = new IntervalList().add(0, 10).add(20, 30).add(40, 60).add(70, 80);
+
+    // The region joins onto the intervals that touch the span, and the ones outside are kept.
+    IntervalList spliced = list.splice(30, 50, new IntervalList().add(30, 35).add(45, 50));
+
+    Assert.assertEquals(new IntervalList().add(0, 10).add(20, 35).add(45, 60).add(70, 80),
+        spliced);
+    Assert.assertEquals(new IntervalList().add(0, 10).add(20, 30).add(40, 60).add(70, 80), list);
+    Assert.assertEquals(new IntervalList().add(0, 5).add(75, 80),
+        list.splice(5, 75, new IntervalList().add(10, 70)).splice(5, 75, new IntervalList()));
+  }
+
+  @Test
+  public void intersectKeepsOverlaps() {
+    IntervalList list = new IntervalList().add(0, 100).add(200, 300);
+    IntervalList other = new IntervalList().add(50, 250).add(280, 290);
+
+    list.intersect(other);
+
+    Assert.assertEquals(new IntervalList().add(50, 100).add(200, 250).add(280, 290), list);
+  }
+
+  @Test
+  public void mergeJoinsTouchingIntervals() {
+    IntervalList list = new IntervalList().add(0, 10).add(40, 50);
+    IntervalList other = new IntervalList().add(10, 20).add(30, 35);
+
+    list.merge(other);
+
+    Assert.assertEquals(new IntervalList().add(0, 20).add(30, 35).add(40, 50), list);
+  }
+
+  @Test
+  public void complementAndView() {
+    IntervalList busy = IntervalList.of(TimeRange.fromStartEnd(60, 120, false));
+
+    IntervalList free = busy.complement(0, 180).removeShorterThan(60);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(0, 60, false), TimeRange.fromStartEnd(120, 180, false)),
+        free.asTimeRanges());
+  }
+
+  @Test
+  public void queryAnswersSerializeLikeTheServlets() {
+    // The servlets hand the views returned by asTimeRanges straight to Gson, on their own and
+    // inside the list of batch answers.
+    List<Event> events = Arrays.asList(new Event("Event 1", TimeRange.fromStartDuration(480, 60),
+        Arrays.asList("Person A")));
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Person A"), 30);
+
+    Collection<TimeRange> answer = new FindMeetingQuery().query(events, request);
+    List<Collection<TimeRange>> answers =
+        new FindMeetingQuery().queryAll(events, Arrays.asList(request));
+
+    String expected = "[{\"start\":0,\"duration\":480},{\"start\":540,\"duration\":900}]";
+    Assert.assertEquals(expected, SchedulerJson.GSON.toJson(answer));
+    Assert.assertEquals("[" + expected + "]", SchedulerJson.GSON.toJson(answers));
+  }
+}
@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalTreeTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final LocalDate MONDAY = LocalDate.of(2020, 6, 1);
+  private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+
+  @Test
+  public void findsSameRangesAsScanning() {
+    // Mix short and very long ranges so that long ranges starting far before the window are needed.
+    Random random = new Random(42);
+    List<TimeRange> ranges = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int duration = random.nextInt(10) == 0 ? random.nextInt(5000) : random.nextInt(60);
+      ranges.add(TimeRange.fromStartDuration(random.nextInt(10000), duration));
+    }
+    IntervalTree tree = new IntervalTree(ranges);
+
+    for (int i = 0; i < 200; i++) {
+      TimeRange window = TimeRange.fromStartDuration(random.nextInt(10000), random.nextInt(300) + 1);
+
+      List<Integer> expected = new ArrayList<>();
+      for (int id = 0; id < ranges.size(); id++) {
+        TimeRange range = ranges.get(id);
+        if (range.start() < window.end() && range.end() > window.start()) {
+          expected.add(id);
+        }
+      }
+      List<Integer> actual = new ArrayList<>();
+      tree.forEachOverlapping(window, actual::add);
+
+      Collections.sort(expected);
+      Collections.sort(actual);
+      Assert.assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void touchingRangesDoNotOverlap() {
+    IntervalTree tree = new IntervalTree(Arrays.asList(
+        TimeRange.fromStartEnd(0, 100, false), TimeRange.fromStartEnd(200, 300, false)));
+
+    List<Integer> actual = new ArrayList<>();
+    tree.forEachOverlapping(TimeRange.fromStartEnd(100, 200, false), actual::add);
+
+    Assert.assertTrue(actual.isEmpty());
+  }
+
+  @Test
+  public void multiDayQueryCrossesMidnight() {
+    // A spends Monday evening into Tuesday morning busy, and B is busy all of Tuesday afternoon.
+    //
+    // Events  :      |------A------|
+    //                                  |--B--|
+    // Window  : |---- Monday ----|---- Tuesday ----|
+    // Options : |--1--|            |-2-|     |--3--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1",
+            TimeRange.fromStartEnd(
+                EpochMinutes.of(MONDAY, 18, 0), EpochMinutes.of(TUESDAY, 9, 0), false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2",
+            TimeRange.fromStartEnd(
+                EpochMinutes.of(TUESDAY, 12, 0), EpochMinutes.of(TUESDAY, 17, 0), false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(EpochMinutes.of(MONDAY, 10, 0), 60),
+            Arrays.asList("Someone else")));
+    TimeRange window = EpochMinutes.days(MONDAY, 2);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 60);
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(
+            EpochMinutes.startOfDay(MONDAY), EpochMinutes.of(MONDAY, 18, 0), false),
+        TimeRange.fromStartEnd(
+            EpochMinutes.of(TUESDAY, 9, 0), EpochMinutes.of(TUESDAY, 12, 0), false),
+        TimeRange.fromStartEnd(
+            EpochMinutes.of(TUESDAY, 17, 0), EpochMinutes.startOfDay(TUESDAY.plusDays(1)), false));
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Assert.assertEquals(expected, query.query(events, request, window));
+    Assert.assertEquals(expected, query.query(new EventTree(events), request, window));
+    Assert.assertEquals(expected, query.query(new EventIndex(events), request, window));
+
+    // Looking at Tuesday alone must not see Monday's free time.
+    TimeRange tuesday = EpochMinutes.days(TUESDAY, 1);
+    Assert.assertEquals(expected.size() - 1, query.query(events, request, tuesday).size());
+    Assert.assertEquals(query.query(events, request, tuesday),
+        query.query(new EventIndex(events), request, tuesday));
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MappedCalendarTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void eventsSurviveTheRoundTrip() throws Exception {
+    List<Event> events = Arrays.asList(Events.events);
+    Path file = folder.newFile("calendar.bin").toPath();
+
+    MappedCalendar.write(events, file);
+    MappedCalendar calendar = MappedCalendar.open(file);
+
+    Assert.assertEquals(events.size(), calendar.getEventCount());
+    Assert.assertEquals(events, calendar.getEvents());
+  }
+
+  @Test
+  public void answersMatchTheEvents() throws Exception {
+    List<Event> events = Arrays.asList(Events.events);
+    Path file = folder.newFile("calendar.bin").toPath();
+    MappedCalendar.write(events, file);
+    MappedCalendar calendar = MappedCalendar.open(file);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Amelia", "Liam", "Nobody"), 30);
+    request.addOptionalAttendee("Ava");
+    Collection<TimeRange> expected = query.query(events, request, TimeRange.WHOLE_DAY);
+    Collection<TimeRange> actual = query.query(calendar, request, TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsOtherFiles() throws Exception {
+    Path file = folder.newFile("other.bin").toPath();
+    Files.write(file, new byte[64]);
+
+    MappedCalendar.open(file);
+  }
+}
@@ -44,4 +44,40 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void StepAlignsStartsWithoutAlignment() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    Assert.assertEquals(1, request.getStartAlignment());
+
+    request.setStep(30);
+    Assert.assertEquals(30, request.getStartAlignment());
+
+    request.setAlignment(5);
+    Assert.assertEquals(5, request.getStartAlignment());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void CantSetNegativeAlignment() {
+    new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR).setAlignment(-5);
+  }
+
+  @Test(timeout = 10000)
+  public void NegativeGranularityFromJsonIsIgnored() {
+    // Gson sets the fields directly, so the setter checks never run.
+    MeetingRequest request = SchedulerJson.GSON.fromJson(
+        "{\"attendees\":[\"Person A\"],\"duration\":30,\"alignment\":-15,\"step\":-5}",
+        MeetingRequest.class);
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 0), 60),
+        Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(0, request.getAlignment());
+    Assert.assertEquals(0, request.getStep());
+    Assert.assertEquals(1, request.getStartAlignment());
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TimeRange.getTimeInMinutes(9, 0), false),
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(10, 0), TimeRange.END_OF_DAY, true)),
+        new FindMeetingQuery().query(new EventIndex(events), request));
+  }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MinuteBitmapTest {
+  @Test
+  public void rangeWithinOneWord() {
+    long[] bits = MinuteBitmap.fromIntervals(new int[] {3, 10});
+
+    Assert.assertEquals(0, MinuteBitmap.nextFree(bits, 0));
+    Assert.assertEquals(3, MinuteBitmap.nextBusy(bits, 0));
+    Assert.assertEquals(10, MinuteBitmap.nextFree(bits, 3));
+    Assert.assertEquals(MinuteBitmap.MINUTES, MinuteBitmap.nextBusy(bits, 10));
+  }
+
+  @Test
+  public void rangeAcrossWordBoundaries() {
+    // 60 to 200 covers the end of the first word, two full words and the start of the fourth.
+    long[] bits = MinuteBitmap.fromIntervals(new int[] {60, 200});
+
+    Assert.assertEquals(60, MinuteBitmap.nextBusy(bits, 0));
+    Assert.assertEquals(200, MinuteBitmap.nextFree(bits, 60));
+    Assert.assertEquals(200, MinuteBitmap.nextFree(bits, 128));
+    Assert.assertEquals(MinuteBitmap.MINUTES, MinuteBitmap.nextBusy(bits, 200));
+  }
+
+  @Test
+  public void rangesEndingOnWordBoundary() {
+    long[] bits = MinuteBitmap.fromIntervals(new int[] {0, 64, 128, 192});
+
+    Assert.assertEquals(64, MinuteBitmap.nextFree(bits, 0));
+    Assert.assertEquals(128, MinuteBitmap.nextBusy(bits, 64));
+    Assert.assertEquals(192, MinuteBitmap.nextFree(bits, 128));
+  }
+
+  @Test
+  public void wholeDayBusy() {
+    long[] bits = MinuteBitmap.fromIntervals(new int[] {0, TimeRange.WHOLE_DAY.end()});
+
+    Assert.assertEquals(0, MinuteBitmap.nextBusy(bits, 0));
+    Assert.assertEquals(MinuteBitmap.MINUTES, MinuteBitmap.nextFree(bits, 0));
+  }
+
+  @Test
+  public void minuteQueryMatchesIndexedQuery() {
+    EventIndex index = new EventIndex(Arrays.asList(Events.events));
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    List<String> people = new ArrayList<>(index.getAttendees());
+    for (int duration : new int[] {1, 30, 60, 240}) {
+      for (String first : people) {
+        for (String second : people) {
+          MeetingRequest request = new MeetingRequest(Arrays.asList(first, second), duration);
+
+          Assert.assertEquals(query.query(index, request), query.queryByMinute(index, request));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void runStartsAcrossWordBoundaries() {
+    // Runs of 100 and 30 minutes; only the first fits a 90 minute meeting.
+    long[] bits = MinuteBitmap.fromIntervals(new int[] {50, 150, 300, 330});
+
+    long[] starts = MinuteBitmap.runStarts(bits, 90);
+
+    Assert.assertEquals(50, MinuteBitmap.nextBusy(starts, 0));
+    Assert.assertEquals(61, MinuteBitmap.nextFree(starts, 50));
+    Assert.assertEquals(MinuteBitmap.MINUTES, MinuteBitmap.nextBusy(starts, 61));
+  }
+
+  @Test
+  public void multiplesOfMarksAlignedMinutes() {
+    long[] bits = MinuteBitmap.multiplesOf(45);
+
+    Assert.assertEquals(0, MinuteBitmap.nextBusy(bits, 0));
+    Assert.assertEquals(45, MinuteBitmap.nextBusy(bits, 1));
+    Assert.assertEquals(1395, MinuteBitmap.nextBusy(bits, 1351));
+    Assert.assertEquals(MinuteBitmap.MINUTES, MinuteBitmap.nextBusy(bits, 1396));
+  }
+}
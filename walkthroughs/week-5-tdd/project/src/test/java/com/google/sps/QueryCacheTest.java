@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final Collection<TimeRange> ANSWER = Arrays.asList(TimeRange.WHOLE_DAY);
+
+  private int queries = 0;
+
+  @Test
+  public void sameRequestInAnyOrderIsAHit() {
+    QueryCache cache = new QueryCache(10);
+
+    cache.get(1, new MeetingRequest(Arrays.asList("A", "B"), 30), this::query);
+    Collection<TimeRange> actual =
+        cache.get(1, new MeetingRequest(Arrays.asList("B", "A"), 30), this::query);
+
+    Assert.assertEquals(ANSWER, actual);
+    Assert.assertEquals(1, queries);
+    Assert.assertEquals(1, cache.getHitCount());
+    Assert.assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void newVersionDropsAnswers() {
+    QueryCache cache = new QueryCache(10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList("A"), 30);
+
+    cache.get(1, request, this::query);
+    cache.get(2, request, this::query);
+
+    Assert.assertEquals(2, queries);
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    QueryCache cache = new QueryCache(2);
+    MeetingRequest a = new MeetingRequest(Arrays.asList("A"), 30);
+    MeetingRequest b = new MeetingRequest(Arrays.asList("B"), 30);
+    MeetingRequest c = new MeetingRequest(Arrays.asList("C"), 30);
+
+    cache.get(1, a, this::query);
+    cache.get(1, b, this::query);
+    cache.get(1, a, this::query);
+    cache.get(1, c, this::query);
+    cache.get(1, a, this::query);
+    cache.get(1, b, this::query);
+
+    // b was evicted when c came in, because a had been used more recently.
+    Assert.assertEquals(4, queries);
+    Assert.assertEquals(2, cache.size());
+  }
+
+  private Collection<TimeRange> query() {
+    queries++;
+    return ANSWER;
+  }
+}
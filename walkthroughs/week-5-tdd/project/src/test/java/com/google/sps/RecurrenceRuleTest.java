@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurrenceRuleTest {
+  private static final String PERSON_A = "Person A";
+
+  // A Monday.
+  private static final LocalDate JAN_6 = LocalDate.of(2020, 1, 6);
+
+  @Test
+  public void everyOtherWeekWithException() {
+    RecurrenceRule rule = RecurrenceRule
+        .weekly(EpochMinutes.of(JAN_6, 14, 0), 60, DayOfWeek.MONDAY, DayOfWeek.THURSDAY)
+        .every(2)
+        .except(EpochMinutes.of(JAN_6.plusDays(3), 14, 0));
+
+    List<TimeRange> actual = rule.getOccurrences(EpochMinutes.days(LocalDate.of(2020, 1, 1), 28));
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartDuration(EpochMinutes.of(JAN_6, 14, 0), 60),
+        TimeRange.fromStartDuration(EpochMinutes.of(JAN_6.plusDays(14), 14, 0), 60),
+        TimeRange.fromStartDuration(EpochMinutes.of(JAN_6.plusDays(17), 14, 0), 60)), actual);
+  }
+
+  @Test
+  public void onlyOccurrencesInWindowAreVisited() {
+    // A standup every day for ten years, asked about for one day in the middle.
+    RecurrenceRule rule = RecurrenceRule.daily(EpochMinutes.of(JAN_6, 9, 0), 15)
+        .until(EpochMinutes.startOfDay(JAN_6.plusYears(10)));
+    int[] visited = new int[1];
+
+    rule.forEachOccurrence(EpochMinutes.days(JAN_6.plusYears(5), 1), start -> visited[0]++);
+
+    Assert.assertEquals(1, visited[0]);
+    Assert.assertTrue(rule.getOccurrences(EpochMinutes.days(JAN_6.plusYears(10), 1)).isEmpty());
+  }
+
+  @Test
+  public void queryAvoidsDailyStandup() {
+    RecurringEvent standup = new RecurringEvent("Standup",
+        RecurrenceRule.daily(EpochMinutes.of(JAN_6, 9, 0), 30), Arrays.asList(PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 60);
+    TimeRange window = EpochMinutes.days(JAN_6.plusDays(1), 2);
+
+    Collection<TimeRange> actual = new FindMeetingQuery().query(Collections.<Event>emptyList(),
+        Arrays.asList(standup), request, window);
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(window.start(), EpochMinutes.of(JAN_6.plusDays(1), 9, 0), false),
+        TimeRange.fromStartEnd(EpochMinutes.of(JAN_6.plusDays(1), 9, 30),
+            EpochMinutes.of(JAN_6.plusDays(2), 9, 0), false),
+        TimeRange.fromStartEnd(EpochMinutes.of(JAN_6.plusDays(2), 9, 30), window.end(), false)),
+        actual);
+  }
+}
@@ -0,0 +1,154 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomIndexTest {
+  private static final Room SMALL = new Room("Small", 2);
+  private static final Room MEDIUM = new Room("Medium", 6);
+  private static final Room LARGE = new Room("Large", 20);
+
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  @Test
+  public void freeRoomsSkipSmallAndBookedRooms() {
+    EventIndex bookings =
+        EventIndex.of(
+            new Event(
+                "Standup",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(MEDIUM.getName())));
+    RoomIndex rooms = new RoomIndex(Arrays.asList(LARGE, SMALL, MEDIUM), bookings,
+        TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(Arrays.asList(LARGE),
+        rooms.getFreeRooms(TimeRange.fromStartDuration(TIME_0900AM, 30), 3));
+    Assert.assertEquals(Arrays.asList(SMALL, MEDIUM, LARGE),
+        rooms.getFreeRooms(TimeRange.fromStartDuration(TIME_1000AM, 30), 1));
+  }
+
+  @Test
+  public void queryPairsFreeTimesWithRooms() {
+    // Person A is busy until 10, Medium is booked from 11 to 12 and Large is booked all day.
+    EventIndex index =
+        EventIndex.of(
+            new Event("Busy", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event("Booked", TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false),
+                Arrays.asList(MEDIUM.getName())),
+            new Event("Offsite", TimeRange.WHOLE_DAY, Arrays.asList(LARGE.getName())));
+    RoomIndex rooms = new RoomIndex(Arrays.asList(SMALL, MEDIUM, LARGE), index,
+        TimeRange.WHOLE_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 60);
+
+    List<RoomSlot> actual =
+        new FindMeetingQuery().queryRooms(index, rooms, request, TimeRange.WHOLE_DAY);
+
+    List<RoomSlot> expected =
+        Arrays.asList(
+            new RoomSlot(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), SMALL),
+            new RoomSlot(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), MEDIUM),
+            new RoomSlot(TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true), MEDIUM));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void queryTrimsRoomTimesToAlignment() {
+    // Person A is busy until 10:10, which leaves Medium too little time before it is booked at 11.
+    EventIndex index =
+        EventIndex.of(
+            new Event("Busy",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM + 10, false),
+                Arrays.asList(PERSON_A)),
+            new Event("Booked", TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false),
+                Arrays.asList(MEDIUM.getName())),
+            new Event("Offsite", TimeRange.WHOLE_DAY, Arrays.asList(LARGE.getName())));
+    RoomIndex rooms = new RoomIndex(Arrays.asList(SMALL, MEDIUM, LARGE), index,
+        TimeRange.WHOLE_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 45);
+    request.setAlignment(30);
+
+    List<RoomSlot> actual =
+        new FindMeetingQuery().queryRooms(index, rooms, request, TimeRange.WHOLE_DAY);
+
+    List<RoomSlot> expected =
+        Arrays.asList(
+            new RoomSlot(TimeRange.fromStartEnd(TIME_1000AM + 30, TimeRange.END_OF_DAY, true),
+                SMALL),
+            new RoomSlot(TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true), MEDIUM));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void queryMatchesScanningEveryRoom() {
+    Random random = new Random(18);
+    List<Room> allRooms = new ArrayList<>();
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      Room room = new Room("Room " + i, 1 + random.nextInt(30));
+      allRooms.add(room);
+      for (int j = 0; j < 4; j++) {
+        int start = random.nextInt(TimeRange.END_OF_DAY - 60);
+        TimeRange when = TimeRange.fromStartDuration(start, 15 + random.nextInt(120));
+        events.add(new Event("Booking", when, Collections.singletonList(room.getName())));
+      }
+    }
+    events.add(new Event("Lunch", TimeRange.fromStartEnd(TIME_1200PM, TIME_1200PM + 60, false),
+        Arrays.asList(PERSON_A)));
+    EventIndex index = new EventIndex(events);
+    RoomIndex rooms = new RoomIndex(allRooms, index, TimeRange.WHOLE_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 45);
+
+    List<RoomSlot> actual =
+        new FindMeetingQuery().queryRooms(index, rooms, request, TimeRange.WHOLE_DAY, 12);
+
+    // Intersect the person's free times with every big enough room's free times, one by one.
+    int endOfDay = TimeRange.WHOLE_DAY.end();
+    IntervalList personFree = index.getBusyIntervals(PERSON_A).complement(0, endOfDay);
+    List<RoomSlot> expected = new ArrayList<>();
+    for (Room room : allRooms) {
+      if (room.getCapacity() < 12) {
+        continue;
+      }
+      IntervalList free =
+          index.getBusyIntervals(room.getName())
+              .complement(0, endOfDay)
+              .intersect(personFree)
+              .removeShorterThan(45);
+      for (TimeRange when : free.asTimeRanges()) {
+        expected.add(new RoomSlot(when, room));
+      }
+    }
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected.size(), actual.size());
+    Assert.assertTrue(actual.containsAll(expected));
+  }
+}
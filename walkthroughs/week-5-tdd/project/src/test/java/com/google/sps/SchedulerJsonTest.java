@@ -0,0 +1,52 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SchedulerJsonTest {
+  private static final Event EVENT = new Event("Event 1",
+      TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(8, 30), 60),
+      Collections.singletonList("Person A"));
+
+  @Test
+  public void matchesReflectiveEncoding() throws Exception {
+    List<TimeRange> times = Arrays.asList(
+        TimeRange.fromStartDuration(0, 30), TimeRange.fromStartDuration(60, 90));
+
+    StringWriter out = new StringWriter();
+    SchedulerJson.write(new Event[] {EVENT}, Event[].class, out);
+
+    Assert.assertEquals(new Gson().toJson(new Event[] {EVENT}), out.toString());
+    Assert.assertEquals(new Gson().toJson(times), SchedulerJson.GSON.toJson(times));
+  }
+
+  @Test
+  public void readsWhatItWrites() {
+    String json = SchedulerJson.GSON.toJson(EVENT);
+
+    Assert.assertEquals(EVENT, SchedulerJson.GSON.fromJson(json, Event.class));
+  }
+}